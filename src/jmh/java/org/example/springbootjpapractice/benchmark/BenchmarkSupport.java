@@ -0,0 +1,84 @@
+package org.example.springbootjpapractice.benchmark;
+
+import org.example.springbootjpapractice.SpringBootJpaPracticeApplication;
+import org.example.springbootjpapractice.cache.UserCache;
+import org.example.springbootjpapractice.dto.BulkInsertResult.RowResult;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.service.BulkUserService;
+import org.example.springbootjpapractice.service.BulkUserService.BulkRow;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Boots the application against a private in-memory H2 database and fills it with a
+ * deterministic data set, so every benchmark sees the same rows for a given size.
+ */
+final class BenchmarkSupport {
+
+    static final String[] CITIES = {
+            "New York", "Los Angeles", "Chicago", "Houston", "Phoenix", "Philadelphia", "San Antonio",
+            "San Diego", "Dallas", "Austin", "Seattle", "Boston", "Miami", "Denver", "Portland"
+    };
+    static final String[] DOMAINS = {"example.com", "test.com", "demo.com", "mail.org"};
+
+    private static final int SEED_BATCH = 1_000;
+
+    private BenchmarkSupport() {
+    }
+
+    static Dataset start(String name, int rows, String... extraProperties) {
+        List<String> properties = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + name + "-" + rows + ";DB_CLOSE_DELAY=-1",
+                "spring.jpa.show-sql=false",
+                "spring.jpa.properties.hibernate.format_sql=false",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN"));
+        properties.addAll(List.of(extraProperties));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootJpaPracticeApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(properties.toArray(String[]::new))
+                .run();
+        return new Dataset(context, seed(context, rows));
+    }
+
+    static String email(int i) {
+        return "user" + i + "@" + DOMAINS[i % DOMAINS.length];
+    }
+
+    static String city(int i) {
+        return CITIES[i % CITIES.length];
+    }
+
+    private static long[] seed(ConfigurableApplicationContext context, int rows) {
+        BulkUserService bulkUserService = context.getBean(BulkUserService.class);
+        long[] ids = new long[rows];
+        List<BulkRow> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new BulkRow(i, new User("User " + i, email(i), 18 + (i * 7) % 60, city(i))));
+            if (batch.size() == SEED_BATCH || i == rows - 1) {
+                for (RowResult result : bulkUserService.writeBatch(batch)) {
+                    ids[result.index()] = result.id();
+                }
+                batch.clear();
+            }
+        }
+        context.getBean(UserCache.class).rebuildEmailFilter();
+        return ids;
+    }
+
+    record Dataset(ConfigurableApplicationContext context, long[] ids) {
+
+        <T> T bean(Class<T> type) {
+            return context.getBean(type);
+        }
+
+        void close() {
+            context.close();
+        }
+    }
+}
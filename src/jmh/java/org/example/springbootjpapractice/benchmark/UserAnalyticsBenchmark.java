@@ -0,0 +1,88 @@
+package org.example.springbootjpapractice.benchmark;
+
+import org.example.springbootjpapractice.analytics.UserColumns;
+import org.example.springbootjpapractice.dto.AgeHistogram;
+import org.example.springbootjpapractice.dto.CityAgeStats;
+import org.example.springbootjpapractice.dto.DomainCount;
+import org.example.springbootjpapractice.dto.StatsFilter;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.seed.SyntheticUsers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scans behind {@code /api/users/stats/*} over synthetic users, without the application or the
+ * database, at one thread and at one thread per CPU.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UserAnalyticsBenchmark {
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private UserColumns columns;
+    private ForkJoinPool pool;
+    private StatsFilter recentChicago;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SyntheticUsers users = new SyntheticUsers(42, LocalDate.of(2025, 1, 1));
+        UserColumns.Builder builder = new UserColumns.Builder(rows);
+        for (int n = 0; n < rows; n++) {
+            User user = users.user(n);
+            builder.add(user.getAge(), user.getCity(), user.getEmail(), user.getCreatedAt());
+        }
+        columns = builder.build();
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        recentChicago = new StatsFilter("Chicago", null, LocalDate.of(2024, 1, 1), null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public AgeHistogram ageHistogram() {
+        return columns.ageHistogram(StatsFilter.none(), 10, pool);
+    }
+
+    @Benchmark
+    public AgeHistogram ageHistogramFiltered() {
+        return columns.ageHistogram(recentChicago, 10, pool);
+    }
+
+    @Benchmark
+    public List<CityAgeStats> cityPercentiles() {
+        return columns.cityAgeStats(StatsFilter.none(), new double[]{50, 90, 99}, pool);
+    }
+
+    @Benchmark
+    public List<DomainCount> topDomains() {
+        return columns.domainCounts(StatsFilter.none(), 20, pool);
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.springbootjpapractice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Garbage made by the {@link User} entity itself: binding a request body, and loading users
+ * into a read-write transaction whose commit dirty-checks them. Read the
+ * {@code gc.alloc.rate.norm} (bytes per operation) column of the default {@code -prof gc} run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class UserEntityAllocationBenchmark {
+
+    private static final byte[] BODY = """
+            {"name":"Jane Smith","email":"jane.smith@example.com","age":30,"city":"Los Angeles"}"""
+            .getBytes(StandardCharsets.UTF_8);
+    private static final int PAGE = 100;
+
+    private BenchmarkSupport.Dataset dataset;
+    private ObjectMapper objectMapper;
+    private UserRepository userRepository;
+    private TransactionTemplate transaction;
+    private List<Long> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkSupport.start("entity", 1_000);
+        objectMapper = dataset.bean(ObjectMapper.class);
+        userRepository = dataset.bean(UserRepository.class);
+        transaction = new TransactionTemplate(dataset.bean(PlatformTransactionManager.class));
+        page = Arrays.stream(dataset.ids()).limit(PAGE).boxed().toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public User bindRequestBody() throws Exception {
+        return objectMapper.readValue(BODY, User.class);
+    }
+
+    @Benchmark
+    public List<User> loadAndFlushPage() {
+        return transaction.execute(status -> userRepository.findAllById(page));
+    }
+}
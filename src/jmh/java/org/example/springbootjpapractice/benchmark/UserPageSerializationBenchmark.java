@@ -0,0 +1,87 @@
+package org.example.springbootjpapractice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.springbootjpapractice.controller.UserController;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a {@code Page<User>} into the JSON body that {@link UserController} returns,
+ * both in isolation and together with the query behind it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserPageSerializationBenchmark {
+
+    @Param({"10", "100"})
+    public int pageSize;
+
+    private BenchmarkSupport.Dataset dataset;
+    private ObjectMapper objectMapper;
+    private ObjectMapper smileMapper;
+    private ObjectMapper cborMapper;
+    private UserController userController;
+    private Page<User> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkSupport.start("serialization", 10_000);
+        objectMapper = dataset.bean(ObjectMapper.class);
+        smileMapper = dataset.bean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+        cborMapper = dataset.bean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+        userController = dataset.bean(UserController.class);
+        page = dataset.bean(UserService.class).getAllUsers(PageRequest.of(0, pageSize, Sort.by("id")));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializePageSmile() throws Exception {
+        return smileMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializePageCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] getAllUsersAndSerialize() throws Exception {
+        return objectMapper.writeValueAsBytes(userController.getAllUsers(3, pageSize, "name", "asc", null,
+                new ServletWebRequest(new MockHttpServletRequest())).getBody());
+    }
+}
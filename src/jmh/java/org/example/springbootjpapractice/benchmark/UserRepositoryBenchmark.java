@@ -0,0 +1,105 @@
+package org.example.springbootjpapractice.benchmark;
+
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserRepositoryBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    private BenchmarkSupport.Dataset dataset;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkSupport.start("repository", rows);
+        userRepository = dataset.bean(UserRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userRepository.findById(dataset.ids()[randomRow()]);
+    }
+
+    @Benchmark
+    public Optional<User> findByEmail() {
+        return userRepository.findByEmail(BenchmarkSupport.email(randomRow()));
+    }
+
+    @Benchmark
+    public Page<User> findByCityFirstPage() {
+        return userRepository.findByCity(BenchmarkSupport.city(randomRow()), PageRequest.of(0, 20, Sort.by("name")));
+    }
+
+    @Benchmark
+    public Page<User> findByCityDeepPage() {
+        return userRepository.findByCity(BenchmarkSupport.city(randomRow()), PageRequest.of(200, 20, Sort.by("name")));
+    }
+
+    @Benchmark
+    public Window<User> scrollByCity() {
+        return userRepository.findByCity(BenchmarkSupport.city(randomRow()), ScrollPosition.keyset(), Limit.of(20),
+                Sort.by("name").and(Sort.by("id")));
+    }
+
+    @Benchmark
+    public Page<User> findByAgeBetween() {
+        int minAge = 18 + ThreadLocalRandom.current().nextInt(50);
+        return userRepository.findByAgeBetween(minAge, minAge + 5, PageRequest.of(0, 20, Sort.by("age")));
+    }
+
+    @Benchmark
+    public Long countByCity() {
+        return userRepository.countByCity(BenchmarkSupport.city(randomRow()));
+    }
+
+    @Benchmark
+    public Page<User> findByNameContaining() {
+        return userRepository.findByNameContainingIgnoreCase(String.valueOf(randomRow()), PageRequest.of(0, 20, Sort.by("name")));
+    }
+
+    @Benchmark
+    public Page<User> findByEmailDomain() {
+        String domain = "@" + BenchmarkSupport.DOMAINS[ThreadLocalRandom.current().nextInt(BenchmarkSupport.DOMAINS.length)];
+        return userRepository.findByEmailDomain(domain, PageRequest.of(0, 20, Sort.by("email")));
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+}
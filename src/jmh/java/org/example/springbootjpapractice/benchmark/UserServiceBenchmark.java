@@ -0,0 +1,102 @@
+package org.example.springbootjpapractice.benchmark;
+
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserServiceBenchmark {
+
+    @Param({"10000"})
+    public int rows;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private BenchmarkSupport.Dataset dataset;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = BenchmarkSupport.start("service", rows);
+        userService = dataset.bean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataset.close();
+    }
+
+    @Benchmark
+    public Optional<User> getUserById() {
+        return userService.getUserById(dataset.ids()[randomRow()]);
+    }
+
+    @Benchmark
+    public Optional<User> getUserByEmail() {
+        return userService.getUserByEmail(BenchmarkSupport.email(randomRow()));
+    }
+
+    @Benchmark
+    public boolean userExistsByEmailHit() {
+        return userService.userExistsByEmail(BenchmarkSupport.email(randomRow()));
+    }
+
+    @Benchmark
+    public boolean userExistsByEmailMiss() {
+        return userService.userExistsByEmail("missing" + randomRow() + "@nowhere.net");
+    }
+
+    @Benchmark
+    public Page<User> findUsersByName() {
+        return userService.findUsersByName(String.valueOf(randomRow()), PageRequest.of(0, 20, Sort.by("name")));
+    }
+
+    @Benchmark
+    public Page<User> findUsersByNameSortedByAge() {
+        return userService.findUsersByName(String.valueOf(randomRow()), PageRequest.of(0, 20, Sort.by("age")));
+    }
+
+    @Benchmark
+    public User createUser() {
+        long n = sequence.incrementAndGet();
+        return userService.createUser(new User("Bench " + n, "bench" + n + "@bench.io", 30, "Chicago"));
+    }
+
+    @Benchmark
+    public User updateUser() {
+        User user = userService.getUserById(dataset.ids()[randomRow()]).orElseThrow();
+        User changes = new User(user.getName(), user.getEmail(), user.getAge() + 1, user.getCity());
+        changes.setId(user.getId());
+        changes.setCreatedAt(user.getCreatedAt());
+        return userService.updateUser(changes);
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(rows);
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.springbootjpapractice.analytics;
+
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Filters and tallies a row range of {@link UserColumns}, splitting it in halves across the
+ * fork-join pool down to {@link #LEAF_ROWS}. The result is one run of counters per group: one
+ * counter when counting only, otherwise one per age plus one for unknown ages. Rows without a
+ * group (no city, no email) are tallied in the last group.
+ */
+class ColumnScan extends RecursiveTask<long[]> {
+
+    // Filter code for "no filter"
+    static final int ANY = Integer.MIN_VALUE;
+    // Filter code of a value no row has
+    static final int NO_MATCH = -2;
+
+    // Large enough that a leaf's time outweighs forking it and allocating its tally
+    private static final int LEAF_ROWS = 1 << 16;
+
+    private final UserColumns columns;
+    private final int[] groupCodes;
+    private final int groups;
+    private final boolean byAge;
+    private final int city;
+    private final int domain;
+    private final long createdFrom;
+    private final long createdBefore;
+    private final int from;
+    private final int to;
+
+    ColumnScan(UserColumns columns, int[] groupCodes, int groups, boolean byAge,
+               int city, int domain, long createdFrom, long createdBefore, int from, int to) {
+        this.columns = columns;
+        this.groupCodes = groupCodes;
+        this.groups = groups;
+        this.byAge = byAge;
+        this.city = city;
+        this.domain = domain;
+        this.createdFrom = createdFrom;
+        this.createdBefore = createdBefore;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected long[] compute() {
+        if (to - from <= LEAF_ROWS) {
+            return tally();
+        }
+        int middle = (from + to) >>> 1;
+        ColumnScan left = split(from, middle);
+        left.fork();
+        long[] tally = split(middle, to).compute();
+        long[] other = left.join();
+        for (int i = 0; i < tally.length; i++) {
+            tally[i] += other[i];
+        }
+        return tally;
+    }
+
+    private ColumnScan split(int from, int to) {
+        return new ColumnScan(columns, groupCodes, groups, byAge, city, domain, createdFrom, createdBefore, from, to);
+    }
+
+    private long[] tally() {
+        int slots = byAge ? UserColumns.AGE_SLOTS : 1;
+        long[] tally = new long[groups * slots];
+        int[] ages = columns.ages;
+        int[] cityCodes = columns.cityCodes;
+        int[] domainCodes = columns.domainCodes;
+        long[] createdAt = columns.createdAt;
+        boolean byTime = createdFrom != UserColumns.NO_TIME || createdBefore != Long.MAX_VALUE;
+        for (int row = from; row < to; row++) {
+            if (city != ANY && cityCodes[row] != city
+                    || domain != ANY && domainCodes[row] != domain
+                    || byTime && (createdAt[row] == UserColumns.NO_TIME
+                            || createdAt[row] < createdFrom || createdAt[row] >= createdBefore)) {
+                continue;
+            }
+            int group = groupCodes == null ? 0 : groupCodes[row];
+            int offset = (group < 0 ? groups - 1 : group) * slots;
+            if (byAge) {
+                int age = ages[row];
+                offset += age < 0 ? UserColumns.UNKNOWN_AGE_SLOT : Math.min(age, UserColumns.MAX_AGE);
+            }
+            tally[offset]++;
+        }
+        return tally;
+    }
+}
@@ -0,0 +1,149 @@
+package org.example.springbootjpapractice.analytics;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.springbootjpapractice.dto.AgeHistogram;
+import org.example.springbootjpapractice.dto.AnalyticsSnapshotInfo;
+import org.example.springbootjpapractice.dto.CityAgeStats;
+import org.example.springbootjpapractice.dto.DomainCount;
+import org.example.springbootjpapractice.dto.StatsFilter;
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Age, city and email domain aggregations over a {@link UserColumns} snapshot of the users
+ * table, scanned in parallel on a dedicated fork-join pool. The snapshot is reloaded every
+ * {@code app.stats.analytics.refresh-interval} when users changed since the last load, so
+ * results trail writes by up to that interval; {@link #refresh()} reloads on demand.
+ */
+@Component
+public class UserAnalytics {
+
+    private static final Logger log = LoggerFactory.getLogger(UserAnalytics.class);
+
+    private static final String SELECT = "SELECT age, city, email, created_at FROM users";
+    private static final int FETCH_SIZE = 10_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.stats.analytics.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool pool;
+    private volatile Snapshot snapshot = new Snapshot(new UserColumns.Builder(0).build(), null, 0);
+    private volatile boolean stale = true;
+
+    @PostConstruct
+    void startPool() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    void stopPool() {
+        pool.shutdownNow();
+    }
+
+    public AgeHistogram ageHistogram(StatsFilter filter, int bucketWidth) {
+        return snapshot.columns().ageHistogram(filter, bucketWidth, pool);
+    }
+
+    public List<CityAgeStats> cityAgeStats(StatsFilter filter, double[] percentiles) {
+        return snapshot.columns().cityAgeStats(filter, percentiles, pool);
+    }
+
+    public List<DomainCount> domainCounts(StatsFilter filter, int top) {
+        return snapshot.columns().domainCounts(filter, top, pool);
+    }
+
+    public AnalyticsSnapshotInfo getInfo() {
+        Snapshot current = snapshot;
+        UserColumns columns = current.columns();
+        return new AnalyticsSnapshotInfo(columns.size(), columns.cityCount(), columns.domainCount(),
+                current.loadedAt(), current.loadMillis(), stale);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        stale = true;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        stale = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.stats.analytics.refresh-interval:1m}",
+            initialDelayString = "${app.stats.analytics.refresh-interval:1m}")
+    public void scheduledRefresh() {
+        if (stale) {
+            refresh();
+        }
+    }
+
+    /**
+     * Reloads the snapshot from the table. Queries keep using the previous one until it is done.
+     */
+    public synchronized AnalyticsSnapshotInfo refresh() {
+        // Cleared first, so changes committed during the load mark the new snapshot stale
+        stale = false;
+        long started = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        UserColumns columns;
+        try {
+            columns = transaction.execute(status -> load());
+        } catch (RuntimeException e) {
+            // Still stale, so the next scheduled refresh tries again
+            stale = true;
+            throw e;
+        }
+        long loadMillis = (System.nanoTime() - started) / 1_000_000;
+        snapshot = new Snapshot(columns, Instant.now(), loadMillis);
+        log.info("Loaded analytics snapshot of {} users in {} ms", columns.size(), loadMillis);
+        return getInfo();
+    }
+
+    private UserColumns load() {
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        UserColumns.Builder builder = new UserColumns.Builder(rows != null ? rows : 0);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            int age = rs.getInt(1);
+            Integer knownAge = rs.wasNull() ? null : age;
+            Timestamp createdAt = rs.getTimestamp(4);
+            builder.add(knownAge, rs.getString(2), rs.getString(3),
+                    createdAt != null ? createdAt.toLocalDateTime() : null);
+        });
+        return builder.build();
+    }
+
+    private record Snapshot(UserColumns columns, Instant loadedAt, long loadMillis) {
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.springbootjpapractice.analytics;
+
+import org.example.springbootjpapractice.dto.AgeHistogram;
+import org.example.springbootjpapractice.dto.CityAgeStats;
+import org.example.springbootjpapractice.dto.DomainCount;
+import org.example.springbootjpapractice.dto.StatsFilter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Column-per-field copy of the users table for aggregations. Ages are plain ints, cities and
+ * email domains are codes into small dictionaries, and creation times are epoch milliseconds of
+ * the stored wall-clock time, so a million users fit in about 20 MB of primitive arrays and a
+ * query reads only the columns it filters or groups on. Instances are immutable once built.
+ */
+public final class UserColumns {
+
+    static final int NO_AGE = -1;
+    static final int NO_CODE = -1;
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    // Ages above this share its slot
+    static final int MAX_AGE = 150;
+    // One slot per age 0..MAX_AGE plus one for users without an age
+    static final int AGE_SLOTS = MAX_AGE + 2;
+    static final int UNKNOWN_AGE_SLOT = AGE_SLOTS - 1;
+
+    final int size;
+    final int[] ages;
+    final int[] cityCodes;
+    final int[] domainCodes;
+    final long[] createdAt;
+    private final String[] cities;
+    private final String[] domains;
+    private final Map<String, Integer> cityIndex;
+    private final Map<String, Integer> domainIndex;
+
+    private UserColumns(Builder builder) {
+        this.size = builder.size;
+        this.ages = Arrays.copyOf(builder.ages, size);
+        this.cityCodes = Arrays.copyOf(builder.cityCodes, size);
+        this.domainCodes = Arrays.copyOf(builder.domainCodes, size);
+        this.createdAt = Arrays.copyOf(builder.createdAt, size);
+        this.cities = builder.cities.toArray(String[]::new);
+        this.domains = builder.domains.toArray(String[]::new);
+        this.cityIndex = Map.copyOf(builder.cityIndex);
+        this.domainIndex = Map.copyOf(builder.domainIndex);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cityCount() {
+        return cities.length;
+    }
+
+    public int domainCount() {
+        return domains.length;
+    }
+
+    public AgeHistogram ageHistogram(StatsFilter filter, int bucketWidth, ForkJoinPool pool) {
+        if (bucketWidth < 1 || bucketWidth > MAX_AGE) {
+            throw new IllegalArgumentException("Bucket width must be between 1 and " + MAX_AGE);
+        }
+        long[] tally = pool.invoke(scan(filter, null, 1, true));
+        long unknown = tally[UNKNOWN_AGE_SLOT];
+        long[] buckets = new long[MAX_AGE / bucketWidth + 1];
+        int first = -1;
+        int last = -1;
+        for (int age = 0; age <= MAX_AGE; age++) {
+            if (tally[age] > 0) {
+                buckets[age / bucketWidth] += tally[age];
+                first = first < 0 ? age / bucketWidth : first;
+                last = age / bucketWidth;
+            }
+        }
+
+        List<AgeHistogram.Bucket> result = new ArrayList<>();
+        long users = unknown;
+        for (int b = first; b >= 0 && b <= last; b++) {
+            result.add(new AgeHistogram.Bucket(b * bucketWidth, (b + 1) * bucketWidth, buckets[b]));
+            users += buckets[b];
+        }
+        return new AgeHistogram(users, unknown, result);
+    }
+
+    /**
+     * Count, age range, average and exact nearest-rank age percentiles for every city with a
+     * matching user, by city name.
+     */
+    public List<CityAgeStats> cityAgeStats(StatsFilter filter, double[] percentiles, ForkJoinPool pool) {
+        for (double p : percentiles) {
+            if (!(p > 0 && p <= 100)) {
+                throw new IllegalArgumentException("Percentiles must be in (0, 100]: " + p);
+            }
+        }
+        long[] tally = pool.invoke(scan(filter, cityCodes, cities.length + 1, true));
+        List<CityAgeStats> result = new ArrayList<>();
+        for (int city = 0; city < cities.length; city++) {
+            CityAgeStats stats = ageStats(cities[city], tally, city * AGE_SLOTS, percentiles);
+            if (stats.count() > 0) {
+                result.add(stats);
+            }
+        }
+        result.sort(Comparator.comparing(CityAgeStats::city));
+        return result;
+    }
+
+    /**
+     * The {@code top} email domains by number of matching users, with their share of them.
+     */
+    public List<DomainCount> domainCounts(StatsFilter filter, int top, ForkJoinPool pool) {
+        if (top < 1) {
+            throw new IllegalArgumentException("top must be positive");
+        }
+        long[] tally = pool.invoke(scan(filter, domainCodes, domains.length + 1, false));
+        long total = Arrays.stream(tally).sum();
+        List<DomainCount> result = new ArrayList<>();
+        for (int domain = 0; domain < domains.length; domain++) {
+            if (tally[domain] > 0) {
+                result.add(new DomainCount(domains[domain], tally[domain], (double) tally[domain] / total));
+            }
+        }
+        result.sort(Comparator.comparingLong(DomainCount::count).reversed().thenComparing(DomainCount::domain));
+        return result.size() > top ? result.subList(0, top) : result;
+    }
+
+    private ColumnScan scan(StatsFilter filter, int[] groupCodes, int groups, boolean byAge) {
+        return new ColumnScan(this, groupCodes, groups, byAge,
+                filterCode(cityIndex, filter.city()),
+                filterCode(domainIndex, filter.emailDomain() == null ? null : domainOf(filter.emailDomain())),
+                filter.createdFrom() == null ? NO_TIME : epochMillis(filter.createdFrom()),
+                filter.createdBefore() == null ? Long.MAX_VALUE : epochMillis(filter.createdBefore()),
+                0, size);
+    }
+
+    private static int filterCode(Map<String, Integer> index, String value) {
+        return value == null ? ColumnScan.ANY : index.getOrDefault(value, ColumnScan.NO_MATCH);
+    }
+
+    private static CityAgeStats ageStats(String city, long[] tally, int offset, double[] percentiles) {
+        long aged = 0;
+        long ageSum = 0;
+        Integer min = null;
+        Integer max = null;
+        for (int age = 0; age <= MAX_AGE; age++) {
+            long count = tally[offset + age];
+            if (count > 0) {
+                min = min == null ? age : min;
+                max = age;
+                aged += count;
+                ageSum += count * age;
+            }
+        }
+        Map<String, Integer> values = new LinkedHashMap<>();
+        for (double p : percentiles) {
+            values.put(label(p), percentile(tally, offset, aged, p));
+        }
+        return new CityAgeStats(city, aged + tally[offset + UNKNOWN_AGE_SLOT], min, max,
+                aged == 0 ? null : (double) ageSum / aged, values);
+    }
+
+    private static Integer percentile(long[] tally, int offset, long aged, double p) {
+        if (aged == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p / 100 * aged));
+        long seen = 0;
+        for (int age = 0; age <= MAX_AGE; age++) {
+            seen += tally[offset + age];
+            if (seen >= rank) {
+                return age;
+            }
+        }
+        return MAX_AGE;
+    }
+
+    private static String label(double p) {
+        return "p" + (p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p));
+    }
+
+    private static String domainOf(String email) {
+        return email.substring(email.indexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static long epochMillis(LocalDate date) {
+        return epochMillis(date.atStartOfDay());
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static final class Builder {
+
+        private int size;
+        private int[] ages;
+        private int[] cityCodes;
+        private int[] domainCodes;
+        private long[] createdAt;
+        private final List<String> cities = new ArrayList<>();
+        private final List<String> domains = new ArrayList<>();
+        private final Map<String, Integer> cityIndex = new HashMap<>();
+        private final Map<String, Integer> domainIndex = new HashMap<>();
+
+        public Builder(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            ages = new int[capacity];
+            cityCodes = new int[capacity];
+            domainCodes = new int[capacity];
+            createdAt = new long[capacity];
+        }
+
+        public Builder add(Integer age, String city, String email, LocalDateTime created) {
+            if (size == ages.length) {
+                int capacity = size + (size >> 1);
+                ages = Arrays.copyOf(ages, capacity);
+                cityCodes = Arrays.copyOf(cityCodes, capacity);
+                domainCodes = Arrays.copyOf(domainCodes, capacity);
+                createdAt = Arrays.copyOf(createdAt, capacity);
+            }
+            ages[size] = age == null || age < 0 ? NO_AGE : age;
+            cityCodes[size] = city == null ? NO_CODE : code(cityIndex, cities, city);
+            domainCodes[size] = email == null ? NO_CODE : code(domainIndex, domains, domainOf(email));
+            createdAt[size] = created == null ? NO_TIME : epochMillis(created);
+            size++;
+            return this;
+        }
+
+        public UserColumns build() {
+            return new UserColumns(this);
+        }
+
+        private static int code(Map<String, Integer> index, List<String> values, String value) {
+            Integer code = index.get(value);
+            if (code == null) {
+                code = values.size();
+                index.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+    }
+}
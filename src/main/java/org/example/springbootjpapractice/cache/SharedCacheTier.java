@@ -0,0 +1,18 @@
+package org.example.springbootjpapractice.cache;
+
+import java.time.Duration;
+
+/**
+ * Second cache tier shared between application instances (for example Redis). Values are
+ * stored as serialized bytes so implementations never hand out shared mutable objects.
+ */
+public interface SharedCacheTier {
+
+    byte[] get(String key);
+
+    void put(String key, byte[] value, Duration ttl);
+
+    void evict(String key);
+
+    void clear();
+}
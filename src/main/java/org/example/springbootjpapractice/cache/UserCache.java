@@ -0,0 +1,355 @@
+package org.example.springbootjpapractice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.example.springbootjpapractice.dto.UserCacheStats;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache for user lookups: a bounded in-process tier in front of a
+ * {@link SharedCacheTier}, plus a Bloom filter over all emails that answers most
+ * "does this email exist" questions without a query. The filter is built from the table at
+ * startup, learns new emails from committed {@link UserChangedEvent}s, and is rebuilt in the
+ * background, sized for the current table, once it holds more emails than it was sized for.
+ * A lookup that loads while its key is evicted, so may have read the row before the change,
+ * does not keep what it loaded in either tier.
+ */
+@Component
+public class UserCache {
+
+    private static final String ID_KEY = "user:id:";
+    private static final String EMAIL_KEY = "user:email:";
+    private static final int EVICTION_STRIPES = 1024;
+
+    @Autowired
+    private SharedCacheTier sharedTier;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${app.cache.users.local.max-size:10000}")
+    private long localMaxSize;
+
+    @Value("${app.cache.users.local.ttl:10m}")
+    private Duration localTtl;
+
+    @Value("${app.cache.users.shared.ttl:1h}")
+    private Duration sharedTtl;
+
+    @Value("${app.cache.users.bloom.false-positive-rate:0.01}")
+    private double bloomFalsePositiveRate;
+
+    private Cache<Long, User> byId;
+    private Cache<String, User> byEmail;
+
+    // Bumped for a key's stripe before each eviction, so lookups can tell one raced their load
+    private final AtomicLongArray evictions = new AtomicLongArray(EVICTION_STRIPES);
+
+    private final AtomicBoolean rebuildingFilter = new AtomicBoolean();
+    private volatile BloomFilter emailFilter;
+    private volatile Set<String> emailsAddedDuringRebuild;
+
+    private final LongAdder sharedHits = new LongAdder();
+    private final LongAdder sharedMisses = new LongAdder();
+    private final LongAdder databaseLoads = new LongAdder();
+    private final LongAdder filterNegatives = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        byId = Caffeine.newBuilder().maximumSize(localMaxSize).expireAfterWrite(localTtl).recordStats().build();
+        byEmail = Caffeine.newBuilder().maximumSize(localMaxSize).expireAfterWrite(localTtl).recordStats().build();
+    }
+
+    public Optional<User> getById(Long id, Function<Long, Optional<User>> loader) {
+        User user = byId.getIfPresent(id);
+        if (user == null) {
+            String key = ID_KEY + id;
+            long stamp = evictionStamp(key);
+            user = readShared(key);
+            boolean fromDatabase = user == null;
+            if (fromDatabase) {
+                databaseLoads.increment();
+                user = loader.apply(id).orElse(null);
+                if (user == null) {
+                    return Optional.empty();
+                }
+                writeShared(user);
+            }
+            user = keep(byId, id, user, key, stamp, fromDatabase);
+        }
+        return Optional.of(user);
+    }
+
+    public Optional<User> getByEmail(String email, Function<String, Optional<User>> loader) {
+        if (definitelyAbsent(email)) {
+            return Optional.empty();
+        }
+        User user = byEmail.getIfPresent(email);
+        if (user == null) {
+            String key = EMAIL_KEY + email;
+            long stamp = evictionStamp(key);
+            user = readShared(key);
+            boolean fromDatabase = user == null;
+            if (fromDatabase) {
+                databaseLoads.increment();
+                user = loader.apply(email).orElse(null);
+                if (user == null) {
+                    return Optional.empty();
+                }
+                writeShared(user);
+            }
+            user = keep(byEmail, email, user, key, stamp, fromDatabase);
+        }
+        return Optional.of(user);
+    }
+
+    /**
+     * The user if the local tier holds it; never goes to the shared tier or the database.
+     */
+    public Optional<User> peekById(Long id) {
+        return Optional.ofNullable(byId.getIfPresent(id));
+    }
+
+    public Optional<User> peekByEmail(String email) {
+        return Optional.ofNullable(byEmail.getIfPresent(email));
+    }
+
+    public boolean existsByEmail(String email, Predicate<String> loader) {
+        if (definitelyAbsent(email)) {
+            return false;
+        }
+        if (byEmail.getIfPresent(email) != null) {
+            return true;
+        }
+        databaseLoads.increment();
+        return loader.test(email);
+    }
+
+    /**
+     * Records a committed email in the existence filter. Every insert or email change must reach
+     * this once it has committed, which {@link #onUserChanged} does; otherwise the filter would
+     * report the email as absent.
+     */
+    public void recordEmail(String email) {
+        // Buffer first: a rebuild that finished before this read also published its filter before it
+        Set<String> pending = emailsAddedDuringRebuild;
+        if (pending != null) {
+            pending.add(email);
+        }
+        BloomFilter filter = emailFilter;
+        if (filter != null) {
+            filter.put(email);
+            if (filter.isSaturated() && !rebuildingFilter.get()) {
+                taskExecutor.execute(this::rebuildEmailFilter);
+            }
+        }
+    }
+
+    public void evict(Long id, String email) {
+        User cached = byId.getIfPresent(id);
+        if (cached == null) {
+            cached = readShared(ID_KEY + id);
+        }
+        if (cached != null && !cached.getEmail().equals(email)) {
+            evictEmail(cached.getEmail());
+        }
+        if (email != null) {
+            evictEmail(email);
+        }
+        evictions.incrementAndGet(stripe(ID_KEY + id));
+        byId.invalidate(id);
+        sharedTier.evict(ID_KEY + id);
+    }
+
+    public void clear() {
+        for (int i = 0; i < EVICTION_STRIPES; i++) {
+            evictions.incrementAndGet(i);
+        }
+        byId.invalidateAll();
+        byEmail.invalidateAll();
+        sharedTier.clear();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        UserSnapshot before = event.before();
+        UserSnapshot after = event.after();
+        if (before != null) {
+            evict(before.id(), before.email());
+        } else if (event.type() != UserChangedEvent.Type.CREATED) {
+            evict(event.id(), null);
+        }
+        if (after != null && (before == null || !after.email().equals(before.email()))) {
+            evictEmail(after.email());
+            recordEmail(after.email());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        if (event.ids() == null) {
+            clear();
+            return;
+        }
+        for (Long id : event.ids()) {
+            evict(id, null);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildEmailFilter() {
+        // Not read-only, so with replicas configured the filter is still built from the primary
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try (Stream<String> emails = userRepository.streamAllEmails()) {
+                rebuildEmailFilter(userRepository.count(), emails.iterator());
+            }
+        });
+    }
+
+    /**
+     * Replaces the filter with one holding {@code emails}. Emails recorded from the start of the
+     * rebuild until the new filter is in place are added to it as well, so the source only has
+     * to include what had committed before it was opened.
+     */
+    public void rebuildEmailFilter(long expectedEmails, Iterator<String> emails) {
+        if (!rebuildingFilter.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            Set<String> pending = ConcurrentHashMap.newKeySet();
+            emailsAddedDuringRebuild = pending;
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEmails * 2, 1024), bloomFalsePositiveRate);
+            emails.forEachRemaining(rebuilt::put);
+            emailFilter = rebuilt;
+            pending.forEach(rebuilt::put);
+        } finally {
+            emailsAddedDuringRebuild = null;
+            rebuildingFilter.set(false);
+        }
+    }
+
+    public UserCacheStats stats() {
+        CacheStats ids = byId.stats();
+        CacheStats emails = byEmail.stats();
+        return new UserCacheStats(
+                ids.hitCount() + emails.hitCount(),
+                ids.missCount() + emails.missCount(),
+                ids.evictionCount() + emails.evictionCount(),
+                byId.estimatedSize() + byEmail.estimatedSize(),
+                sharedHits.sum(),
+                sharedMisses.sum(),
+                filterNegatives.sum(),
+                databaseLoads.sum());
+    }
+
+    private boolean definitelyAbsent(String email) {
+        BloomFilter filter = emailFilter;
+        if (filter != null && !filter.mightContain(email)) {
+            filterNegatives.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void evictEmail(String email) {
+        evictions.incrementAndGet(stripe(EMAIL_KEY + email));
+        byEmail.invalidate(email);
+        sharedTier.evict(EMAIL_KEY + email);
+    }
+
+    /**
+     * Caches a looked-up user locally unless a newer version is already there, then takes it out
+     * of both tiers again if {@code key} was evicted since {@code stamp}. An eviction after that
+     * check finds the user in place and removes it itself.
+     */
+    private <K> User keep(Cache<K, User> cache, K cacheKey, User user, String key, long stamp, boolean fromDatabase) {
+        User kept = cache.asMap().merge(cacheKey, user, (cached, loaded) -> isOlder(loaded, cached) ? cached : loaded);
+        if (evictionStamp(key) != stamp) {
+            cache.asMap().remove(cacheKey, user);
+            if (fromDatabase) {
+                sharedTier.evict(ID_KEY + user.getId());
+                sharedTier.evict(EMAIL_KEY + user.getEmail());
+            }
+        }
+        return kept;
+    }
+
+    private static boolean isOlder(User user, User than) {
+        return user.getVersion() != null && than.getVersion() != null && user.getVersion() < than.getVersion();
+    }
+
+    private long evictionStamp(String key) {
+        return evictions.get(stripe(key));
+    }
+
+    private static int stripe(String key) {
+        return Math.floorMod(key.hashCode(), EVICTION_STRIPES);
+    }
+
+    private User readShared(String key) {
+        byte[] bytes = sharedTier.get(key);
+        if (bytes == null) {
+            sharedMisses.increment();
+            return null;
+        }
+        sharedHits.increment();
+        try {
+            return objectMapper.readValue(bytes, User.class);
+        } catch (IOException e) {
+            sharedTier.evict(key);
+            return null;
+        }
+    }
+
+    private void writeShared(User user) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(user);
+            sharedTier.put(ID_KEY + user.getId(), bytes, sharedTtl);
+            sharedTier.put(EMAIL_KEY + user.getEmail(), bytes, sharedTtl);
+        } catch (IOException e) {
+            // The shared tier is an optimisation; a failed write only costs a later miss
+        }
+    }
+}
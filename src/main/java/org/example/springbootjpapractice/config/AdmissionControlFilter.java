@@ -0,0 +1,290 @@
+package org.example.springbootjpapractice.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for {@code /api/users} reads, so scans cannot take the connections that
+ * point lookups need. Requests are sorted into a lookup lane (by id or email, in-memory stats)
+ * and a scan lane (pages, scrolls, searches, counts, export). Each lane has a token bucket per
+ * client, charged by the rows a request may return, and a bulkhead: a cap on requests running
+ * at once and a short, bounded queue in front of it. A client over its rate gets 429, a full
+ * lane 503, both right away and with {@code Retry-After}. Writes and the change feed are not
+ * limited. Every lane also refuses a {@code size} above {@code app.admission.max-page-size}.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final String BASE = "/api/users";
+    // Rows per token in the scan lane
+    private static final int ROWS_PER_TOKEN = 20;
+    // Ids per token in a batch lookup
+    private static final int IDS_PER_TOKEN = 100;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${app.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.admission.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${app.admission.client-id-header:}")
+    private String clientIdHeader;
+
+    @Value("${app.admission.lookup.rate:1000}")
+    private double lookupRate;
+
+    @Value("${app.admission.lookup.burst:2000}")
+    private int lookupBurst;
+
+    @Value("${app.admission.lookup.max-concurrent:64}")
+    private int lookupMaxConcurrent;
+
+    @Value("${app.admission.lookup.max-queue:256}")
+    private int lookupMaxQueue;
+
+    @Value("${app.admission.lookup.max-wait:500ms}")
+    private Duration lookupMaxWait;
+
+    @Value("${app.admission.scan.rate:100}")
+    private double scanRate;
+
+    @Value("${app.admission.scan.burst:200}")
+    private int scanBurst;
+
+    @Value("${app.admission.scan.max-concurrent:6}")
+    private int scanMaxConcurrent;
+
+    @Value("${app.admission.scan.max-queue:32}")
+    private int scanMaxQueue;
+
+    @Value("${app.admission.scan.max-wait:1s}")
+    private Duration scanMaxWait;
+
+    private Lane lookup;
+    private Lane scan;
+
+    @PostConstruct
+    void init() {
+        lookup = new Lane("lookup", lookupRate, lookupBurst, lookupMaxConcurrent, lookupMaxQueue, lookupMaxWait);
+        scan = new Lane("scan", scanRate, scanBurst, scanMaxConcurrent, scanMaxQueue, scanMaxWait);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = path(request);
+        return !path.equals(BASE) && !path.startsWith(BASE + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Lane lane = classify(request);
+        if (lane == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        int size = intParameter(request, "size");
+        if (size > maxPageSize) {
+            reject(lane, "page_size", response, HttpStatus.BAD_REQUEST, 0);
+            return;
+        }
+        if (!enabled) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = lane.bucket(clientOf(request)).tryAcquire(Math.min(cost(request, lane, size), lane.burst));
+        if (waitNanos > 0) {
+            reject(lane, "rate_limited", response, HttpStatus.TOO_MANY_REQUESTS, waitNanos);
+            return;
+        }
+        if (!lane.enter()) {
+            reject(lane, "overloaded", response, HttpStatus.SERVICE_UNAVAILABLE, TimeUnit.SECONDS.toNanos(1));
+            return;
+        }
+
+        AtomicBoolean left = new AtomicBoolean();
+        Runnable leave = () -> {
+            if (left.compareAndSet(false, true)) {
+                lane.leave();
+            }
+        };
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streaming bodies keep running after this thread returns
+                request.getAsyncContext().addListener(new ReleasingListener(leave));
+            } else {
+                leave.run();
+            }
+        }
+    }
+
+    private Lane classify(HttpServletRequest request) {
+        String rest = path(request).substring(BASE.length());
+        String method = request.getMethod();
+        if ("GET".equals(method)) {
+            if (rest.isEmpty() || rest.equals("/")) {
+                return request.getParameter("ids") != null ? lookup : scan;
+            }
+            if (rest.equals("/changes")) {
+                // Long polls hold no connection while they wait
+                return null;
+            }
+            if (rest.startsWith("/search/") || rest.startsWith("/count/")
+                    || rest.equals("/scroll") || rest.equals("/export")) {
+                return scan;
+            }
+            return lookup;
+        }
+        if ("POST".equals(method)
+                && (rest.equals("/search") || rest.equals("/stats/refresh") || rest.equals("/city-stats/reconcile"))) {
+            return scan;
+        }
+        return null;
+    }
+
+    private int cost(HttpServletRequest request, Lane lane, int size) {
+        if (lane == lookup) {
+            String ids = request.getParameter("ids");
+            return ids == null ? 1 : 1 + ids.split(",").length / IDS_PER_TOKEN;
+        }
+        if (path(request).endsWith("/export")) {
+            return lane.burst;
+        }
+        return Math.max(1, (size + ROWS_PER_TOKEN - 1) / ROWS_PER_TOKEN);
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String client = clientIdHeader.isEmpty() ? null : request.getHeader(clientIdHeader);
+        return client != null && !client.isBlank() ? client : request.getRemoteAddr();
+    }
+
+    private void reject(Lane lane, String reason, HttpServletResponse response, HttpStatus status, long retryAfterNanos) {
+        meterRegistry.counter("app.admission.rejected", "lane", lane.name, "reason", reason).increment();
+        if (retryAfterNanos > 0) {
+            long seconds = Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(seconds));
+        }
+        response.setStatus(status.value());
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static int intParameter(HttpServletRequest request, String name) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            // Left for the controller to refuse
+            return 0;
+        }
+    }
+
+    private static final class Lane {
+
+        private final String name;
+        private final double rate;
+        private final int burst;
+        private final Semaphore running;
+        private final int maxQueue;
+        private final Duration maxWait;
+        private final AtomicInteger queued = new AtomicInteger();
+        private final Cache<String, TokenBucket> buckets = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .maximumSize(100_000)
+                .build();
+
+        Lane(String name, double rate, int burst, int maxConcurrent, int maxQueue, Duration maxWait) {
+            this.name = name;
+            this.rate = rate;
+            this.burst = burst;
+            this.running = new Semaphore(maxConcurrent);
+            this.maxQueue = maxQueue;
+            this.maxWait = maxWait;
+        }
+
+        TokenBucket bucket(String client) {
+            return buckets.get(client, c -> new TokenBucket(rate, burst));
+        }
+
+        /**
+         * Takes a running slot, waiting up to {@code maxWait} if fewer than {@code maxQueue}
+         * requests are waiting already.
+         */
+        boolean enter() {
+            if (running.tryAcquire()) {
+                return true;
+            }
+            if (queued.incrementAndGet() > maxQueue) {
+                queued.decrementAndGet();
+                return false;
+            }
+            try {
+                return running.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+
+        void leave() {
+            running.release();
+        }
+    }
+
+    private record ReleasingListener(Runnable release) implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release.run();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.springbootjpapractice.config;
+
+import org.example.springbootjpapractice.cache.InMemorySharedCacheTier;
+import org.example.springbootjpapractice.cache.SharedCacheTier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(SharedCacheTier.class)
+    public SharedCacheTier sharedCacheTier() {
+        return new InMemorySharedCacheTier();
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.springbootjpapractice.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * The clock that user timestamps are taken from. Declare another {@link Clock} bean, such as
+ * {@link Clock#fixed}, to control them.
+ */
+@Configuration
+public class ClockConfig {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
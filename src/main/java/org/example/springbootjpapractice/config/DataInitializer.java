@@ -2,7 +2,10 @@ package org.example.springbootjpapractice.config;
 
 import org.example.springbootjpapractice.entity.User;
 import org.example.springbootjpapractice.repository.UserRepository;
+import org.example.springbootjpapractice.seed.UserSeeder;
+import org.example.springbootjpapractice.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
@@ -12,9 +15,36 @@ public class DataInitializer implements CommandLineRunner {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserSeeder userSeeder;
+    
+    @Value("${app.seed.users:0}")
+    private long seedUsers;
+    
+    @Value("${app.seed.reset-on-startup:true}")
+    private boolean resetOnStartup;
+    
     @Override
     public void run(String... args) throws Exception {
-        userRepository.deleteAll();
+        if (!resetOnStartup) {
+            long existing = userRepository.count();
+            if (existing > 0) {
+                System.out.println("Keeping existing data, total users: " + existing);
+                return;
+            }
+        }
+        
+        userService.deleteAllUsers();
+        
+        if (seedUsers > 0) {
+            userSeeder.seed(seedUsers);
+            System.out.println("Synthetic data initialized successfully!");
+            System.out.println("Total users created: " + userRepository.count());
+            return;
+        }
         
         User user1 = new User("John Doe", "john.doe@example.com", 25, "New York");
         User user2 = new User("Jane Smith", "jane.smith@example.com", 30, "Los Angeles");
@@ -0,0 +1,74 @@
+package org.example.springbootjpapractice.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.example.springbootjpapractice.service.UserLookupCoalescer;
+import org.example.springbootjpapractice.service.WriteBehindUserService;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics on top of what Actuator binds by itself ({@code http.server.requests},
+ * {@code spring.data.repository.invocations}, {@code hibernate.*} and {@code hikaricp.*}).
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+    }
+
+    @Bean
+    public StatementMetricsFilter statementMetricsFilter(MeterRegistry meterRegistry) {
+        return new StatementMetricsFilter(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder connectionLimiterMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConnectionLimitingDataSource limiter) {
+                FunctionTimer.builder("app.datasource.limiter.acquire", limiter,
+                                ConnectionLimitingDataSource::getAcquireCount,
+                                ConnectionLimitingDataSource::getAcquireWaitNanos, TimeUnit.NANOSECONDS)
+                        .description("Time spent waiting for a connection permit")
+                        .register(registry);
+                Gauge.builder("app.datasource.limiter.active", limiter, ConnectionLimitingDataSource::getActiveConnections)
+                        .register(registry);
+                Gauge.builder("app.datasource.limiter.pending", limiter, ConnectionLimitingDataSource::getQueueLength)
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder lookupCoalescingMetrics(UserLookupCoalescer userLookupCoalescer) {
+        return registry -> {
+            FunctionCounter.builder("app.users.lookup.batches", userLookupCoalescer, UserLookupCoalescer::getBatchCount)
+                    .description("Batched id and email queries run for user lookups")
+                    .register(registry);
+            FunctionCounter.builder("app.users.lookup.keys", userLookupCoalescer, UserLookupCoalescer::getKeyCount)
+                    .description("Keys loaded by those queries")
+                    .register(registry);
+            FunctionCounter.builder("app.users.lookup.shared", userLookupCoalescer, UserLookupCoalescer::getSharedCount)
+                    .description("Lookups answered by a query already queued or running for the same key")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder writeBehindMetrics(WriteBehindUserService writeBehindUserService) {
+        return registry -> Gauge.builder("app.users.write_behind.queued", writeBehindUserService,
+                        WriteBehindUserService::getQueueDepth)
+                .description("Users accepted in write-behind mode and not yet flushed")
+                .register(registry);
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.springbootjpapractice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to replica pools and everything else to the primary.
+ * The physical connection is only fetched at the first statement, after the transaction
+ * manager has marked it read-only, so {@code @Transactional(readOnly = true)} alone decides
+ * the route. Read-only connections go round-robin over the replicas, unless the request is
+ * pinned to the primary by {@link ReadYourWritesFilter}.
+ */
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+
+    public ReadWriteRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas) {
+        super(primary);
+        this.primary = primary;
+        this.replicas = replicas;
+        setReadOnlyDataSource(new ReplicaRouter(primary, replicas));
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+
+    private static class ReplicaRouter extends AbstractRoutingDataSource {
+
+        private static final String PRIMARY = "primary";
+
+        private final int replicaCount;
+        private final AtomicInteger next = new AtomicInteger();
+
+        ReplicaRouter(HikariDataSource primary, List<HikariDataSource> replicas) {
+            this.replicaCount = replicas.size();
+            Map<Object, Object> targets = new HashMap<>();
+            targets.put(PRIMARY, primary);
+            for (int i = 0; i < replicas.size(); i++) {
+                targets.put(i, replicas.get(i));
+            }
+            setTargetDataSources(targets);
+            setLenientFallback(false);
+            afterPropertiesSet();
+        }
+
+        @Override
+        protected Object determineCurrentLookupKey() {
+            if (ReadYourWritesFilter.isPinnedToPrimary()) {
+                return PRIMARY;
+            }
+            return Math.floorMod(next.getAndIncrement(), replicaCount);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.springbootjpapractice.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * Read-your-writes for replica routing. Once a request commits a user change, the rest of it
+ * reads from the primary, and the client gets a cookie that keeps its reads there for
+ * {@code app.datasource.replicas.sticky-window}, long enough for the replicas to catch up.
+ * Every write renews the cookie. Its expiry is signed with {@code sticky-secret}, and one
+ * further out than a window from now is ignored, so clients cannot pin themselves for good.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "primary-until";
+
+    private static final String HMAC = "HmacSHA256";
+    private static final String COOKIE_ISSUED = ReadYourWritesFilter.class.getName() + ".COOKIE_ISSUED";
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+
+    private final Duration stickyWindow;
+    private final SecretKeySpec key;
+
+    public ReadYourWritesFilter(Duration stickyWindow, byte[] secret) {
+        this.stickyWindow = stickyWindow;
+        this.key = new SecretKeySpec(secret, HMAC);
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.currentTimeMillis();
+        long until = pinnedUntil(request);
+        if (until > now && until <= now + stickyWindow.toMillis()) {
+            PINNED.set(Boolean.TRUE);
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            PINNED.remove();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        pinCurrentRequest();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        pinCurrentRequest();
+    }
+
+    private void pinCurrentRequest() {
+        // Writes outside a request (write-behind flusher, startup) have no client to pin
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            return;
+        }
+        PINNED.set(Boolean.TRUE);
+        // Issued even when a cookie already pins the client, so the window starts from this write
+        HttpServletResponse response = servletAttributes.getResponse();
+        if (response != null && !response.isCommitted()
+                && servletAttributes.getAttribute(COOKIE_ISSUED, RequestAttributes.SCOPE_REQUEST) == null) {
+            servletAttributes.setAttribute(COOKIE_ISSUED, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+            long until = System.currentTimeMillis() + stickyWindow.toMillis();
+            Cookie cookie = new Cookie(COOKIE, until + "." + sign(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, stickyWindow.toSeconds()));
+            response.addCookie(cookie);
+        }
+    }
+
+    /**
+     * The expiry in the request's cookie, or 0 if there is none or its signature does not match.
+     */
+    private long pinnedUntil(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE.equals(cookie.getName())) {
+                String value = cookie.getValue();
+                int dot = value.indexOf('.');
+                try {
+                    long until = Long.parseLong(value.substring(0, Math.max(dot, 0)));
+                    boolean signed = MessageDigest.isEqual(sign(until).getBytes(StandardCharsets.US_ASCII),
+                            value.substring(dot + 1).getBytes(StandardCharsets.US_ASCII));
+                    return signed ? until : 0;
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    private String sign(long until) {
+        try {
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(key);
+            byte[] signature = mac.doFinal(Long.toString(until).getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Could not sign the read-your-writes cookie", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.springbootjpapractice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas, enabled by listing their JDBC URLs in {@code app.datasource.replicas.urls}.
+ * Every pool uses the {@code spring.datasource} credentials and {@code spring.datasource.hikari}
+ * settings; only the URL differs. Without replicas Boot's single pooled datasource is used.
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.replicas.urls")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReadWriteRoutingDataSource dataSource(DataSourceProperties properties, Environment environment,
+            @Value("${app.datasource.replicas.urls}") List<String> replicaUrls) {
+        Binder binder = Binder.get(environment);
+        HikariDataSource primary = pool(properties, binder, properties.determineUrl(), "primary");
+        List<HikariDataSource> replicas = new ArrayList<>(replicaUrls.size());
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            replicas.add(pool(properties, binder, replicaUrls.get(i), "replica-" + i));
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas);
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${app.datasource.replicas.sticky-window:5s}") Duration stickyWindow,
+            @Value("${app.datasource.replicas.sticky-secret:}") String stickySecret) {
+        byte[] secret;
+        if (stickySecret.isBlank()) {
+            // Cookies signed by other instances or before a restart then read from the replicas
+            secret = new byte[32];
+            new SecureRandom().nextBytes(secret);
+        } else {
+            secret = stickySecret.getBytes(StandardCharsets.UTF_8);
+        }
+        return new ReadYourWritesFilter(stickyWindow, secret);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties, Binder binder, String url, String name) {
+        HikariDataSource pool = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url)
+                .build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
@@ -0,0 +1,59 @@
+package org.example.springbootjpapractice.config;
+
+import org.example.springbootjpapractice.seed.DatabaseSnapshot;
+import org.example.springbootjpapractice.seed.SnapshotEndpoint;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Snapshots of the file-backed database, enabled by {@code app.snapshot.path} (set by the
+ * {@code file} profile). The restore hooks in before the datasource is initialized because
+ * H2 must not have the files open while they are replaced.
+ */
+@Configuration
+@ConditionalOnProperty("app.snapshot.path")
+public class SnapshotConfig {
+
+    @Bean
+    public static BeanPostProcessor snapshotRestoringPostProcessor(
+            @Value("${app.snapshot.path}") String snapshot,
+            @Value("${app.data-dir}") String dataDir,
+            @Value("${app.snapshot.restore-on-startup:false}") boolean restoreOnStartup) {
+        return new BeanPostProcessor() {
+            private boolean restored = !restoreOnStartup;
+
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof DataSource && !restored) {
+                    restored = true;
+                    try {
+                        DatabaseSnapshot.restore(Path.of(snapshot), Path.of(dataDir));
+                    } catch (IOException e) {
+                        throw new BeanInitializationException("Could not restore snapshot " + snapshot, e);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public DatabaseSnapshot databaseSnapshot(JdbcTemplate jdbcTemplate, @Value("${app.snapshot.path}") String path) {
+        return new DatabaseSnapshot(jdbcTemplate, Path.of(path));
+    }
+
+    @Bean
+    public SnapshotEndpoint snapshotEndpoint(DatabaseSnapshot databaseSnapshot) {
+        return new SnapshotEndpoint(databaseSnapshot);
+    }
+}
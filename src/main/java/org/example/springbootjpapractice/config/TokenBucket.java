@@ -0,0 +1,45 @@
+package org.example.springbootjpapractice.config;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket, kept as the single time at which every token taken so far will have
+ * been paid back at {@code ratePerSecond} (the GCRA formulation). Taking tokens moves that time
+ * forward with one compare-and-set; a request is refused if it would move it more than
+ * {@code burst} tokens' worth past now.
+ */
+public final class TokenBucket {
+
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final AtomicLong paidUntil;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burstNanos = nanosPerToken * burst;
+        this.paidUntil = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes {@code tokens} and returns 0, or takes nothing and returns how many nanoseconds
+     * until they would be available.
+     */
+    public long tryAcquire(int tokens) {
+        long cost = nanosPerToken * tokens;
+        while (true) {
+            long now = System.nanoTime();
+            long current = paidUntil.get();
+            long next = Math.max(current, now) + cost;
+            long excess = next - now - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (paidUntil.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.springbootjpapractice.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.springbootjpapractice.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Turns a keyset scroll position (the sort key values of the last row served) into an
+ * opaque URL-safe token and back.
+ */
+@Component
+public class CursorCodec {
+
+    private static final TypeReference<Map<String, Object>> KEYS_TYPE = new TypeReference<>() {
+    };
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public String encode(ScrollPosition position) {
+        if (!(position instanceof KeysetScrollPosition keyset)) {
+            throw new IllegalArgumentException("Only keyset positions can be encoded");
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(keyset.getKeys());
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not encode cursor", e);
+        }
+    }
+
+    /**
+     * Decodes a cursor for the given sort, or returns the initial position when there is no
+     * cursor. A cursor produced for a different sort is rejected.
+     */
+    public KeysetScrollPosition decode(String cursor, Sort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+        Map<String, Object> raw;
+        try {
+            raw = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), KEYS_TYPE);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+
+        Set<String> sortProperties = sort.stream().map(Sort.Order::getProperty).collect(Collectors.toSet());
+        if (!raw.keySet().equals(sortProperties)) {
+            throw new IllegalArgumentException("Cursor does not match the requested sort");
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (Sort.Order order : sort) {
+            Field field = ReflectionUtils.findField(User.class, order.getProperty());
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown sort property: " + order.getProperty());
+            }
+            keys.put(order.getProperty(), objectMapper.convertValue(raw.get(order.getProperty()), field.getType()));
+        }
+        return ScrollPosition.forward(keys);
+    }
+}
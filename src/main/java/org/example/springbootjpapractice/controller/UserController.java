@@ -8,28 +8,119 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.example.springbootjpapractice.analytics.UserAnalytics;
+import org.example.springbootjpapractice.dto.AgeHistogram;
+import org.example.springbootjpapractice.dto.AnalyticsSnapshotInfo;
+import org.example.springbootjpapractice.dto.BulkInsertResult;
+import org.example.springbootjpapractice.dto.BulkUpdateResult;
+import org.example.springbootjpapractice.dto.ChangeStamp;
+import org.example.springbootjpapractice.dto.CityAgeStats;
+import org.example.springbootjpapractice.dto.CityStats;
+import org.example.springbootjpapractice.dto.CursorPage;
+import org.example.springbootjpapractice.dto.DomainCount;
+import org.example.springbootjpapractice.dto.PendingWrite;
+import org.example.springbootjpapractice.dto.StatsFilter;
+import org.example.springbootjpapractice.dto.UserCacheStats;
+import org.example.springbootjpapractice.dto.UserFilter;
+import org.example.springbootjpapractice.dto.UserSearchRequest;
 import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.outbox.UserChangeFeed;
+import org.example.springbootjpapractice.repository.UserSpecifications;
+import org.example.springbootjpapractice.search.TrigramIndex;
+import org.example.springbootjpapractice.service.BulkUserService;
+import org.example.springbootjpapractice.service.CityStatsService;
+import org.example.springbootjpapractice.service.UserExportService;
+import org.example.springbootjpapractice.service.UserPurgeService;
 import org.example.springbootjpapractice.service.UserService;
+import org.example.springbootjpapractice.service.WriteBehindUserService;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.KeysetScrollPosition;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/users")
 @Tag(name = "User Management", description = "APIs for managing users with pagination and advanced search capabilities")
 public class UserController {
     
+    private static final String FEED_POSITION = "Feed-Position";
+    private static final int MAX_CHANGES = 5000;
+    private static final int MAX_WAIT_SECONDS = 60;
+    private static final int MAX_IDS = 1000;
+    // Keyset scrolling seeks with > and = on the sort keys, which never match NULL, so only
+    // columns that are never null (or that the endpoint's filter rules null out) are allowed
+    private static final Set<String> SCROLL_SORT_KEYS = Set.of("id", "name", "email");
+    private static final Set<String> CITY_SCROLL_SORT_KEYS = Set.of("id", "name", "email", "city");
+    private static final Set<String> AGE_SCROLL_SORT_KEYS = Set.of("id", "name", "email", "age");
+    
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private BulkUserService bulkUserService;
+    
+    @Autowired
+    private UserExportService userExportService;
+    
+    @Autowired
+    private UserPurgeService userPurgeService;
+    
+    @Autowired
+    private CursorCodec cursorCodec;
+    
+    @Autowired
+    private CityStatsService cityStatsService;
+    
+    @Autowired
+    private WriteBehindUserService writeBehindUserService;
+    
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+    
+    @Autowired
+    private UserAnalytics userAnalytics;
+    
+    @Value("${app.admission.max-page-size:500}")
+    private int maxPageSize;
+    
     @Operation(
         summary = "Get all users with pagination",
         description = "Retrieve a paginated list of all users. Supports sorting and filtering.",
@@ -43,13 +134,14 @@ public class UserController {
                 mediaType = "application/json",
                 schema = @Schema(implementation = Page.class),
                 examples = @ExampleObject(
-                    value = "{\"content\":[{\"id\":1,\"name\":\"John Doe\",\"email\":\"john@example.com\",\"age\":25,\"city\":\"New York\"}],\"totalElements\":1,\"totalPages\":1,\"size\":10,\"number\":0}"
+                    value = "{\"content\":[{\"id\":1,\"name\":\"John Doe\",\"email\":\"john@example.com\",\"age\":25,\"city\":\"New York\"}],\"page\":{\"size\":10,\"number\":0,\"totalElements\":1,\"totalPages\":1}}"
                 )
             )
-        )
+        ),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the If-None-Match validator; the weak ETag is only sent when the request carries one")
     })
     @GetMapping
-    public ResponseEntity<Page<User>> getAllUsers(
+    public ResponseEntity<Page<?>> getAllUsers(
             @Parameter(description = "Page number (0-based)", example = "0") 
             @RequestParam(defaultValue = "0") int page,
             @Parameter(description = "Number of items per page", example = "10") 
@@ -57,30 +149,180 @@ public class UserController {
             @Parameter(description = "Sort by field (name, email, age, city, createdAt)", example = "name") 
             @RequestParam(defaultValue = "id") String sortBy,
             @Parameter(description = "Sort direction (asc, desc)", example = "asc") 
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Comma-separated fields to return (id, name, email, age, city, createdAt, updatedAt). Omit for full users.", example = "id,name,city")
+            @RequestParam(required = false) List<String> fields,
+            WebRequest webRequest) {
+        if (pageNotModified(webRequest, UserSpecifications.all(), fields)) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
+        if (fields != null && !fields.isEmpty()) {
+            return projected(() -> userService.getAllUsers(fields, pageable));
+        }
+        
         Page<User> users = userService.getAllUsers(pageable);
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
     
+    @Operation(
+        summary = "Get users by ID",
+        description = "Retrieve up to 1000 users in one request, in the order of the ids; unknown ids are left out. "
+                + "Ids not in the cache are loaded together with concurrent single-user lookups."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "The users that exist"),
+        @ApiResponse(responseCode = "400", description = "No ids, or more than 1000")
+    })
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<User>> getUsersByIds(
+            @Parameter(description = "Comma-separated user IDs", required = true, example = "1,2,3")
+            @RequestParam List<Long> ids) {
+        if (ids.isEmpty() || ids.size() > MAX_IDS || ids.contains(null)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(userService.getUsersByIds(ids), HttpStatus.OK);
+    }
+    
+    @Operation(
+        summary = "Search users by any combination of filters",
+        description = "One keyset-paginated query for any combination of city, cities, name, nameContains, age range, "
+                + "email domain and creation date, sorted by any field. Pass nextCursor back as cursor for the next page."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching users"),
+        @ApiResponse(responseCode = "400", description = "Unknown field or sort property, invalid cursor, or size below 1 or above app.admission.max-page-size")
+    })
+    @PostMapping("/search")
+    public ResponseEntity<CursorPage<?>> searchUsers(@RequestBody UserSearchRequest request) {
+        String sortBy = request.sortBy() != null ? request.sortBy() : "id";
+        Sort.Direction direction = "desc".equalsIgnoreCase(request.sortDir()) ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, sortBy);
+        if (!sortBy.equals("id")) {
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+        int size = request.size() != null ? request.size() : 20;
+        if (size < 1 || size > maxPageSize) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        try {
+            KeysetScrollPosition position = cursorCodec.decode(request.cursor(), sort);
+            Window<?> window = userService.searchUsers(request, sort, position, size);
+            String nextCursor = window.hasNext() ? cursorCodec.encode(window.positionAt(window.size() - 1)) : null;
+            Long total = request.withCount() ? userService.countSearchUsers(request) : null;
+            return new ResponseEntity<>(
+                    new CursorPage<>(window.getContent(), window.size(), window.hasNext(), nextCursor, total), HttpStatus.OK);
+        } catch (IllegalArgumentException | InvalidDataAccessApiUsageException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+    
+    @Operation(
+        summary = "Export all users",
+        description = "Stream every user as newline-delimited JSON (format=ndjson) or CSV (format=csv). "
+                + "Rows are written as they are read, so memory stays flat regardless of table size."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Export stream"),
+        @ApiResponse(responseCode = "400", description = "Unsupported format")
+    })
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @Parameter(description = "Export format (ndjson, csv)", example = "ndjson")
+            @RequestParam(defaultValue = "ndjson") String format) {
+        UserExportService.Format exportFormat;
+        try {
+            exportFormat = UserExportService.Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(exportFormat == UserExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON);
+        headers.setContentDisposition(ContentDisposition.attachment()
+                .filename("users." + exportFormat.name().toLowerCase(Locale.ROOT)).build());
+        StreamingResponseBody body = out -> userExportService.export(exportFormat, out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
+    @Operation(
+        summary = "Follow user changes",
+        description = "Creates, updates and deletes in commit order as newline-delimited JSON, one change per line "
+                + "with its feed position. Pass the position of the last change processed as 'after'. "
+                + "When there is nothing newer the request waits up to 'wait' seconds for the next change (long poll)."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Changes after the cursor"),
+        @ApiResponse(responseCode = "204", description = "No change within the wait time; poll again with the same cursor"),
+        @ApiResponse(responseCode = "400", description = "Invalid limit or wait"),
+        @ApiResponse(responseCode = "410", description = "Cursor no longer in the feed; re-read users and resume after the Feed-Position header")
+    })
+    @GetMapping("/changes")
+    public DeferredResult<ResponseEntity<StreamingResponseBody>> getChanges(
+            @Parameter(description = "Position of the last change already processed", example = "0")
+            @RequestParam(defaultValue = "0") long after,
+            @Parameter(description = "Maximum number of changes (1-5000)", example = "500")
+            @RequestParam(defaultValue = "500") int limit,
+            @Parameter(description = "Seconds to wait for a change when there is none yet (0-60)", example = "25")
+            @RequestParam(defaultValue = "25") int wait) {
+        DeferredResult<ResponseEntity<StreamingResponseBody>> result =
+                new DeferredResult<>(Math.max(1, wait) * 1000L, new ResponseEntity<>(HttpStatus.NO_CONTENT));
+        if (limit < 1 || limit > MAX_CHANGES || wait < 0 || wait > MAX_WAIT_SECONDS) {
+            result.setResult(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+            return result;
+        }
+        
+        HttpHeaders headers = new HttpHeaders();
+        if (userChangeFeed.isExpired(after)) {
+            headers.set(FEED_POSITION, String.valueOf(userChangeFeed.getLastPosition()));
+            result.setResult(new ResponseEntity<>(headers, HttpStatus.GONE));
+            return result;
+        }
+        
+        CompletableFuture<Long> published = userChangeFeed.awaitAfter(after);
+        if (wait == 0 && !published.isDone()) {
+            published.cancel(false);
+            result.setResult(new ResponseEntity<>(HttpStatus.NO_CONTENT));
+            return result;
+        }
+        result.onCompletion(() -> published.cancel(false));
+        published.thenAccept(position -> {
+            headers.setContentType(MediaType.APPLICATION_NDJSON);
+            headers.set(FEED_POSITION, String.valueOf(position));
+            StreamingResponseBody body = out -> userChangeFeed.write(after, limit, out);
+            result.setResult(new ResponseEntity<>(body, headers, HttpStatus.OK));
+        });
+        return result;
+    }
+    
     @Operation(
         summary = "Get user by ID",
         description = "Retrieve a specific user by their unique identifier"
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "User found"),
+        @ApiResponse(responseCode = "200", description = "User found, with ETag and Last-Modified"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the If-None-Match / If-Modified-Since validators"),
         @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/{id}")
     public ResponseEntity<User> getUserById(
             @Parameter(description = "User ID", required = true, example = "1")
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            WebRequest webRequest) {
+        if (hasValidators(webRequest)) {
+            Optional<ChangeStamp> stamp = userService.getUserChangeStamp(id);
+            if (stamp.isPresent() && notModified(webRequest, stamp.get())) {
+                return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+            }
+        }
         Optional<User> user = userService.getUserById(id);
-        return user.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+        return user.map(value -> withValidators(webRequest, value))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
     
@@ -89,15 +331,23 @@ public class UserController {
         description = "Retrieve a specific user by their email address"
     )
     @ApiResponses(value = {
-        @ApiResponse(responseCode = "200", description = "User found"),
+        @ApiResponse(responseCode = "200", description = "User found, with ETag and Last-Modified"),
+        @ApiResponse(responseCode = "304", description = "Unchanged since the If-None-Match / If-Modified-Since validators"),
         @ApiResponse(responseCode = "404", description = "User not found")
     })
     @GetMapping("/email/{email}")
     public ResponseEntity<User> getUserByEmail(
             @Parameter(description = "User email", required = true, example = "john@example.com")
-            @PathVariable String email) {
+            @PathVariable String email,
+            WebRequest webRequest) {
+        if (hasValidators(webRequest)) {
+            Optional<ChangeStamp> stamp = userService.getUserChangeStampByEmail(email);
+            if (stamp.isPresent() && notModified(webRequest, stamp.get())) {
+                return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+            }
+        }
         Optional<User> user = userService.getUserByEmail(email);
-        return user.map(value -> new ResponseEntity<>(value, HttpStatus.OK))
+        return user.map(value -> withValidators(webRequest, value))
                 .orElseGet(() -> new ResponseEntity<>(HttpStatus.NOT_FOUND));
     }
     
@@ -106,18 +356,28 @@ public class UserController {
         description = "Find users living in a specific city with pagination support"
     )
     @GetMapping("/search/city/{city}")
-    public ResponseEntity<Page<User>> findUsersByCity(
+    public ResponseEntity<Page<?>> findUsersByCity(
             @Parameter(description = "City name", required = true, example = "New York")
             @PathVariable String city,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Comma-separated fields to return (id, name, email, age, city, createdAt, updatedAt). Omit for full users.", example = "id,name,city")
+            @RequestParam(required = false) List<String> fields,
+            WebRequest webRequest) {
+        if (pageNotModified(webRequest, UserSpecifications.hasCity(city), fields)) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
+        if (fields != null && !fields.isEmpty()) {
+            return projected(() -> userService.findUsersByCity(city, fields, pageable));
+        }
+        
         Page<User> users = userService.findUsersByCity(city, pageable);
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
@@ -127,7 +387,7 @@ public class UserController {
         description = "Find users within a specific age range with pagination support"
     )
     @GetMapping("/search/age")
-    public ResponseEntity<Page<User>> findUsersByAgeRange(
+    public ResponseEntity<Page<?>> findUsersByAgeRange(
             @Parameter(description = "Minimum age", required = true, example = "25")
             @RequestParam Integer minAge,
             @Parameter(description = "Maximum age", required = true, example = "35")
@@ -135,12 +395,22 @@ public class UserController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "age") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Comma-separated fields to return (id, name, email, age, city, createdAt, updatedAt). Omit for full users.", example = "id,name,city")
+            @RequestParam(required = false) List<String> fields,
+            WebRequest webRequest) {
+        if (pageNotModified(webRequest, UserSpecifications.ageBetween(minAge, maxAge), fields)) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
+        if (fields != null && !fields.isEmpty()) {
+            return projected(() -> userService.findUsersByAgeRange(minAge, maxAge, fields, pageable));
+        }
+        
         Page<User> users = userService.findUsersByAgeRange(minAge, maxAge, pageable);
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
@@ -150,40 +420,71 @@ public class UserController {
         description = "Find users older than a specific age with pagination support"
     )
     @GetMapping("/search/older-than/{age}")
-    public ResponseEntity<Page<User>> findUsersOlderThan(
+    public ResponseEntity<Page<?>> findUsersOlderThan(
             @Parameter(description = "Minimum age", required = true, example = "30")
             @PathVariable Integer age,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "age") String sortBy,
-            @RequestParam(defaultValue = "desc") String sortDir) {
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @Parameter(description = "Comma-separated fields to return (id, name, email, age, city, createdAt, updatedAt). Omit for full users.", example = "id,name,city")
+            @RequestParam(required = false) List<String> fields,
+            WebRequest webRequest) {
+        if (pageNotModified(webRequest, UserSpecifications.olderThan(age), fields)) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
+        if (fields != null && !fields.isEmpty()) {
+            return projected(() -> userService.findUsersOlderThan(age, fields, pageable));
+        }
+        
         Page<User> users = userService.findUsersOlderThan(age, pageable);
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
     
     @Operation(
         summary = "Search users by name with pagination",
-        description = "Find users by name (case-insensitive) with pagination support"
+        description = "Find users by name (case-insensitive) with pagination support. Sorting by name or relevance "
+                + "is answered from the in-memory name index; match=prefix finds names with a word starting with the query"
     )
     @GetMapping("/search/name/{name}")
-    public ResponseEntity<Page<User>> findUsersByName(
+    public ResponseEntity<Page<?>> findUsersByName(
             @Parameter(description = "Name to search for", required = true, example = "John")
             @PathVariable String name,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort by field (name, relevance, email, age, city, createdAt)", example = "relevance")
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Match mode (contains, prefix)", example = "contains")
+            @RequestParam(defaultValue = "contains") String match,
+            @Parameter(description = "Comma-separated fields to return (id, name, email, age, city, createdAt, updatedAt). Omit for full users.", example = "id,name,city")
+            @RequestParam(required = false) List<String> fields,
+            WebRequest webRequest) {
+        if (pageNotModified(webRequest, UserSpecifications.nameContains(name), fields)) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
-        Page<User> users = userService.findUsersByName(name, pageable);
+        TrigramIndex.Match mode;
+        try {
+            mode = TrigramIndex.Match.valueOf(match.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        
+        if (fields != null && !fields.isEmpty()) {
+            return projected(() -> userService.findUsersByName(name, mode, fields, pageable));
+        }
+        
+        Page<User> users = userService.findUsersByName(name, mode, pageable);
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
     
@@ -192,18 +493,28 @@ public class UserController {
         description = "Find users with emails from a specific domain with pagination support"
     )
     @GetMapping("/search/email-domain/{domain}")
-    public ResponseEntity<Page<User>> findUsersByEmailDomain(
+    public ResponseEntity<Page<?>> findUsersByEmailDomain(
             @Parameter(description = "Email domain", required = true, example = "@example.com")
             @PathVariable String domain,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "email") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Comma-separated fields to return (id, name, email, age, city, createdAt, updatedAt). Omit for full users.", example = "id,name,city")
+            @RequestParam(required = false) List<String> fields,
+            WebRequest webRequest) {
+        if (pageNotModified(webRequest, UserSpecifications.emailDomain(domain), fields)) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
+        if (fields != null && !fields.isEmpty()) {
+            return projected(() -> userService.findUsersByEmailDomain(domain, fields, pageable));
+        }
+        
         Page<User> users = userService.findUsersByEmailDomain(domain, pageable);
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
@@ -213,7 +524,7 @@ public class UserController {
         description = "Find users by both name and city with pagination support"
     )
     @GetMapping("/search/name-city")
-    public ResponseEntity<Page<User>> findUsersByNameAndCity(
+    public ResponseEntity<Page<?>> findUsersByNameAndCity(
             @Parameter(description = "Name to search for", required = true, example = "John")
             @RequestParam String name,
             @Parameter(description = "City name", required = true, example = "New York")
@@ -221,16 +532,191 @@ public class UserController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(defaultValue = "name") String sortBy,
-            @RequestParam(defaultValue = "asc") String sortDir) {
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @Parameter(description = "Comma-separated fields to return (id, name, email, age, city, createdAt, updatedAt). Omit for full users.", example = "id,name,city")
+            @RequestParam(required = false) List<String> fields,
+            WebRequest webRequest) {
+        if (pageNotModified(webRequest, UserSpecifications.hasName(name).and(UserSpecifications.hasCity(city)), fields)) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
         
         Sort sort = sortDir.equalsIgnoreCase("desc") ? 
             Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
         Pageable pageable = PageRequest.of(page, size, sort);
         
+        if (fields != null && !fields.isEmpty()) {
+            return projected(() -> userService.findUsersByNameAndCity(name, city, fields, pageable));
+        }
+        
         Page<User> users = userService.findUsersByNameAndCity(name, city, pageable);
         return new ResponseEntity<>(users, HttpStatus.OK);
     }
     
+    @Operation(
+        summary = "Scroll all users with a cursor",
+        description = "Keyset (seek) pagination over all users. Pass nextCursor from the previous response to get the next window; "
+                + "deep windows cost the same as the first. The total count is only computed when withCount=true."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Window of users and the cursor for the next one"),
+        @ApiResponse(responseCode = "400", description = "Sort field not allowed here, invalid cursor, or size below 1")
+    })
+    @GetMapping("/scroll")
+    public ResponseEntity<CursorPage<User>> scrollAllUsers(
+            @Parameter(description = "Continuation token from the previous response") 
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort by field (id, name, email)")
+            @RequestParam(defaultValue = "id") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+        return scroll(cursor, size, sortBy, sortDir, SCROLL_SORT_KEYS,
+                (position, sort) -> userService.scrollAllUsers(position, size, sort),
+                withCount ? userService::countAllUsers : null);
+    }
+    
+    @Operation(
+        summary = "Scroll users by city with a cursor",
+        description = "Keyset (seek) pagination over users living in a specific city"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Window of users and the cursor for the next one"),
+        @ApiResponse(responseCode = "400", description = "Sort field not allowed here, invalid cursor, or size below 1")
+    })
+    @GetMapping("/search/city/{city}/scroll")
+    public ResponseEntity<CursorPage<User>> scrollUsersByCity(
+            @Parameter(description = "City name", required = true, example = "New York")
+            @PathVariable String city,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort by field (id, name, email, city)")
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+        return scroll(cursor, size, sortBy, sortDir, CITY_SCROLL_SORT_KEYS,
+                (position, sort) -> userService.scrollUsersByCity(city, position, size, sort),
+                withCount ? () -> userService.countUsersByCity(city) : null);
+    }
+    
+    @Operation(
+        summary = "Scroll users by age range with a cursor",
+        description = "Keyset (seek) pagination over users within a specific age range"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Window of users and the cursor for the next one"),
+        @ApiResponse(responseCode = "400", description = "Sort field not allowed here, invalid cursor, or size below 1")
+    })
+    @GetMapping("/search/age/scroll")
+    public ResponseEntity<CursorPage<User>> scrollUsersByAgeRange(
+            @Parameter(description = "Minimum age", required = true, example = "25")
+            @RequestParam Integer minAge,
+            @Parameter(description = "Maximum age", required = true, example = "35")
+            @RequestParam Integer maxAge,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort by field (id, name, email, age)")
+            @RequestParam(defaultValue = "age") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+        return scroll(cursor, size, sortBy, sortDir, AGE_SCROLL_SORT_KEYS,
+                (position, sort) -> userService.scrollUsersByAgeRange(minAge, maxAge, position, size, sort),
+                withCount ? () -> userService.countUsersByAgeRange(minAge, maxAge) : null);
+    }
+    
+    @Operation(
+        summary = "Scroll users older than specified age with a cursor",
+        description = "Keyset (seek) pagination over users older than a specific age"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Window of users and the cursor for the next one"),
+        @ApiResponse(responseCode = "400", description = "Sort field not allowed here, invalid cursor, or size below 1")
+    })
+    @GetMapping("/search/older-than/{age}/scroll")
+    public ResponseEntity<CursorPage<User>> scrollUsersOlderThan(
+            @Parameter(description = "Minimum age", required = true, example = "30")
+            @PathVariable Integer age,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort by field (id, name, email, age)")
+            @RequestParam(defaultValue = "age") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+        return scroll(cursor, size, sortBy, sortDir, AGE_SCROLL_SORT_KEYS,
+                (position, sort) -> userService.scrollUsersOlderThan(age, position, size, sort),
+                withCount ? () -> userService.countUsersOlderThan(age) : null);
+    }
+    
+    @Operation(
+        summary = "Scroll users by name with a cursor",
+        description = "Keyset (seek) pagination over users whose name contains the given text (case-insensitive)"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Window of users and the cursor for the next one"),
+        @ApiResponse(responseCode = "400", description = "Sort field not allowed here, invalid cursor, or size below 1")
+    })
+    @GetMapping("/search/name/{name}/scroll")
+    public ResponseEntity<CursorPage<User>> scrollUsersByName(
+            @Parameter(description = "Name to search for", required = true, example = "John")
+            @PathVariable String name,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort by field (id, name, email)")
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+        return scroll(cursor, size, sortBy, sortDir, SCROLL_SORT_KEYS,
+                (position, sort) -> userService.scrollUsersByName(name, position, size, sort),
+                withCount ? () -> userService.countUsersByName(name) : null);
+    }
+    
+    @Operation(
+        summary = "Scroll users by email domain with a cursor",
+        description = "Keyset (seek) pagination over users with emails from a specific domain"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Window of users and the cursor for the next one"),
+        @ApiResponse(responseCode = "400", description = "Sort field not allowed here, invalid cursor, or size below 1")
+    })
+    @GetMapping("/search/email-domain/{domain}/scroll")
+    public ResponseEntity<CursorPage<User>> scrollUsersByEmailDomain(
+            @Parameter(description = "Email domain", required = true, example = "@example.com")
+            @PathVariable String domain,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort by field (id, name, email)")
+            @RequestParam(defaultValue = "email") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+        return scroll(cursor, size, sortBy, sortDir, SCROLL_SORT_KEYS,
+                (position, sort) -> userService.scrollUsersByEmailDomain(domain, position, size, sort),
+                withCount ? () -> userService.countUsersByEmailDomain(domain) : null);
+    }
+    
+    @Operation(
+        summary = "Scroll users by name and city with a cursor",
+        description = "Keyset (seek) pagination over users matching both name and city"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Window of users and the cursor for the next one"),
+        @ApiResponse(responseCode = "400", description = "Sort field not allowed here, invalid cursor, or size below 1")
+    })
+    @GetMapping("/search/name-city/scroll")
+    public ResponseEntity<CursorPage<User>> scrollUsersByNameAndCity(
+            @Parameter(description = "Name to search for", required = true, example = "John")
+            @RequestParam String name,
+            @Parameter(description = "City name", required = true, example = "New York")
+            @RequestParam String city,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "Sort by field (id, name, email, city)")
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir,
+            @RequestParam(defaultValue = "false") boolean withCount) {
+        return scroll(cursor, size, sortBy, sortDir, CITY_SCROLL_SORT_KEYS,
+                (position, sort) -> userService.scrollUsersByNameAndCity(name, city, position, size, sort),
+                withCount ? () -> userService.countUsersByNameAndCity(name, city) : null);
+    }
+    
     @Operation(
         summary = "Count users by city",
         description = "Get the total count of users in a specific city"
@@ -243,18 +729,133 @@ public class UserController {
         return new ResponseEntity<>(count, HttpStatus.OK);
     }
     
+    @Operation(
+        summary = "Get statistics for every city",
+        description = "User count and min/max/average age per city, served from the in-memory aggregate"
+    )
+    @GetMapping("/city-stats")
+    public ResponseEntity<List<CityStats>> getCityStats() {
+        return new ResponseEntity<>(cityStatsService.getAllStats(), HttpStatus.OK);
+    }
+    
+    @Operation(
+        summary = "Get statistics for a city",
+        description = "User count and min/max/average age for one city, served from the in-memory aggregate"
+    )
+    @GetMapping("/city-stats/{city}")
+    public ResponseEntity<CityStats> getCityStats(
+            @Parameter(description = "City name", required = true, example = "Chicago")
+            @PathVariable String city) {
+        return new ResponseEntity<>(cityStatsService.getStats(city), HttpStatus.OK);
+    }
+    
+    @Operation(
+        summary = "Rebuild city statistics",
+        description = "Recompute the city aggregate from the table and return how many cities had drifted"
+    )
+    @PostMapping("/city-stats/reconcile")
+    public ResponseEntity<Integer> reconcileCityStats() {
+        return new ResponseEntity<>(cityStatsService.reconcile(), HttpStatus.OK);
+    }
+    
+    @Operation(
+        summary = "Get the analytics snapshot",
+        description = "Size and age of the columnar snapshot behind /api/users/stats/*. It is reloaded every "
+                + "app.stats.analytics.refresh-interval when users changed, so results can trail writes by that long."
+    )
+    @GetMapping("/stats")
+    public ResponseEntity<AnalyticsSnapshotInfo> getAnalyticsInfo() {
+        return new ResponseEntity<>(userAnalytics.getInfo(), HttpStatus.OK);
+    }
+    
+    @Operation(
+        summary = "Get an age histogram",
+        description = "Number of matching users per age bucket, from the youngest to the oldest non-empty bucket"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Histogram computed"),
+        @ApiResponse(responseCode = "400", description = "Bucket width outside 1-150")
+    })
+    @GetMapping("/stats/age-histogram")
+    public ResponseEntity<AgeHistogram> getAgeHistogram(
+            @Parameter(description = "Width of each age bucket in years", example = "10")
+            @RequestParam(defaultValue = "10") int bucketWidth,
+            @ParameterObject StatsFilter filter) {
+        try {
+            return new ResponseEntity<>(userAnalytics.ageHistogram(filter, bucketWidth), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+    
+    @Operation(
+        summary = "Get age statistics per city",
+        description = "Count, min/max/average age and exact age percentiles of the matching users in each city"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Statistics computed"),
+        @ApiResponse(responseCode = "400", description = "A percentile outside (0, 100]")
+    })
+    @GetMapping("/stats/cities")
+    public ResponseEntity<List<CityAgeStats>> getCityAgeStats(
+            @Parameter(description = "Comma-separated age percentiles", example = "50,90,99")
+            @RequestParam(defaultValue = "50,90,99") double[] percentiles,
+            @ParameterObject StatsFilter filter) {
+        try {
+            return new ResponseEntity<>(userAnalytics.cityAgeStats(filter, percentiles), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+    
+    @Operation(
+        summary = "Get the top email domains",
+        description = "Email domains with the most matching users, and each one's share of them"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Domains counted"),
+        @ApiResponse(responseCode = "400", description = "top is not positive")
+    })
+    @GetMapping("/stats/domains")
+    public ResponseEntity<List<DomainCount>> getDomainCounts(
+            @Parameter(description = "Number of domains to return", example = "20")
+            @RequestParam(defaultValue = "20") int top,
+            @ParameterObject StatsFilter filter) {
+        try {
+            return new ResponseEntity<>(userAnalytics.domainCounts(filter, top), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+    
+    @Operation(
+        summary = "Reload the analytics snapshot",
+        description = "Reload the columnar snapshot from the table now instead of waiting for the next refresh"
+    )
+    @PostMapping("/stats/refresh")
+    public ResponseEntity<AnalyticsSnapshotInfo> refreshAnalytics() {
+        return new ResponseEntity<>(userAnalytics.refresh(), HttpStatus.OK);
+    }
+    
     @Operation(
         summary = "Create a new user",
-        description = "Add a new user to the system"
+        description = "Add a new user to the system. With app.users.write-behind.enabled the user is queued instead "
+                + "and 202 is returned with a tracking id; poll /api/users/pending/{trackingId} for the outcome."
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "User created successfully"),
-        @ApiResponse(responseCode = "400", description = "Invalid user data")
+        @ApiResponse(responseCode = "202", description = "User queued for a batched insert (write-behind mode)"),
+        @ApiResponse(responseCode = "400", description = "Invalid user data"),
+        @ApiResponse(responseCode = "409", description = "Email already exists or is already queued (write-behind mode)"),
+        @ApiResponse(responseCode = "503", description = "Write-behind queue is full; retry after the Retry-After delay")
     })
     @PostMapping
-    public ResponseEntity<User> createUser(
+    public ResponseEntity<?> createUser(
             @Parameter(description = "User object", required = true)
             @RequestBody User user) {
+        if (writeBehindUserService.isEnabled()) {
+            return enqueueUser(user);
+        }
         try {
             User createdUser = userService.createUser(user);
             return new ResponseEntity<>(createdUser, HttpStatus.CREATED);
@@ -263,6 +864,55 @@ public class UserController {
         }
     }
     
+    private ResponseEntity<?> enqueueUser(User user) {
+        try {
+            PendingWrite pending = writeBehindUserService.submit(user);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setLocation(URI.create("/api/users/pending/" + pending.trackingId()));
+            return new ResponseEntity<>(pending, headers, HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (DuplicateKeyException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        } catch (RejectedExecutionException e) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return new ResponseEntity<>(headers, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+    
+    @Operation(
+        summary = "Get the outcome of a queued user",
+        description = "State of a user accepted in write-behind mode: QUEUED, CREATED (with its id) or REJECTED (with the reason). "
+                + "Outcomes are kept for app.users.write-behind.status-ttl."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Current state of the queued user"),
+        @ApiResponse(responseCode = "404", description = "Unknown or expired tracking id")
+    })
+    @GetMapping("/pending/{trackingId}")
+    public ResponseEntity<PendingWrite> getPendingUser(
+            @Parameter(description = "Tracking id returned by POST /api/users", required = true)
+            @PathVariable String trackingId) {
+        return writeBehindUserService.getStatus(trackingId)
+                .map(status -> new ResponseEntity<>(status, HttpStatus.OK))
+                .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+    
+    @Operation(
+        summary = "Bulk create users",
+        description = "Stream a JSON array or newline-delimited JSON (NDJSON) of users. Rows are written in JDBC batches "
+                + "and the response counts accepted and rejected rows and lists the rejected ones with their errors."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rows processed, see the counts and rejected rows")
+    })
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkInsertResult> createUsersInBulk(InputStream body) throws IOException {
+        BulkInsertResult result = bulkUserService.ingest(body);
+        return new ResponseEntity<>(result, HttpStatus.OK);
+    }
+    
     @Operation(
         summary = "Update an existing user",
         description = "Update user information by ID"
@@ -270,7 +920,8 @@ public class UserController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "User updated successfully"),
         @ApiResponse(responseCode = "400", description = "Invalid user data"),
-        @ApiResponse(responseCode = "404", description = "User not found")
+        @ApiResponse(responseCode = "404", description = "User not found"),
+        @ApiResponse(responseCode = "409", description = "User was modified concurrently (version mismatch)")
     })
     @PutMapping("/{id}")
     public ResponseEntity<User> updateUser(
@@ -282,11 +933,81 @@ public class UserController {
             user.setId(id);
             User updatedUser = userService.updateUser(user);
             return new ResponseEntity<>(updatedUser, HttpStatus.OK);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
         }
     }
     
+    @Operation(
+        summary = "Partially update a user",
+        description = "Change only the given fields (name, email, age, city) with a single UPDATE of those columns. "
+                + "Include \"version\" to make the update conditional on the version you last read."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "User updated successfully"),
+        @ApiResponse(responseCode = "400", description = "Unknown field or invalid value"),
+        @ApiResponse(responseCode = "404", description = "User not found"),
+        @ApiResponse(responseCode = "409", description = "User was modified concurrently (version mismatch)")
+    })
+    @PatchMapping("/{id}")
+    public ResponseEntity<User> patchUser(
+            @Parameter(description = "User ID", required = true, example = "1")
+            @PathVariable Long id,
+            @Parameter(description = "Fields to change", required = true)
+            @RequestBody Map<String, Object> changes,
+            @Parameter(description = "ETag from a previous GET; the update only applies if the user is still at that version")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Map<String, Object> fields = new LinkedHashMap<>(changes);
+        Object version = fields.remove("version");
+        Long expectedVersion;
+        try {
+            expectedVersion = ifMatch != null ? ChangeStamp.parseVersion(ifMatch, id)
+                    : version == null ? null : ((Number) version).longValue();
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.PRECONDITION_FAILED);
+        } catch (ClassCastException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        try {
+            User updatedUser = userService.patchUser(id, fields, expectedVersion);
+            HttpHeaders headers = new HttpHeaders();
+            headers.setETag(ChangeStamp.ofUser(updatedUser).etag());
+            return new ResponseEntity<>(updatedUser, headers, HttpStatus.OK);
+        } catch (NoSuchElementException e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (OptimisticLockingFailureException e) {
+            return new ResponseEntity<>(ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT);
+        } catch (ClassCastException | IllegalArgumentException | DataIntegrityViolationException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+    
+    @Operation(
+        summary = "Partially update all matching users",
+        description = "Apply the same change (name, age or city) to every user matching the filters in one "
+                + "set-based UPDATE, e.g. renaming a city. At least one filter is required."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Number of users updated"),
+        @ApiResponse(responseCode = "400", description = "No filter, unknown field or invalid value")
+    })
+    @PatchMapping
+    public ResponseEntity<BulkUpdateResult> patchUsers(
+            @ParameterObject UserFilter filter,
+            @Parameter(description = "Fields to change", required = true)
+            @RequestBody Map<String, Object> changes) {
+        try {
+            int updated = userService.patchUsers(filter, changes);
+            return new ResponseEntity<>(new BulkUpdateResult(updated), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+    
     @Operation(
         summary = "Delete a user",
         description = "Remove a user from the system by ID"
@@ -300,13 +1021,35 @@ public class UserController {
             @Parameter(description = "User ID", required = true, example = "1")
             @PathVariable Long id) {
         try {
-            userService.deleteUser(id);
-            return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+            boolean deleted = userService.deleteUser(id);
+            return new ResponseEntity<>(deleted ? HttpStatus.NO_CONTENT : HttpStatus.NOT_FOUND);
         } catch (Exception e) {
             return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         }
     }
     
+    @Operation(
+        summary = "Delete all matching users",
+        description = "Purge users by city, email domain, creation date and so on. Rows are removed in batches, "
+                + "each in its own transaction, and progress is streamed as newline-delimited JSON. "
+                + "At least one filter is required."
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Progress stream"),
+        @ApiResponse(responseCode = "400", description = "No filter given")
+    })
+    @DeleteMapping
+    public ResponseEntity<StreamingResponseBody> deleteUsers(@ParameterObject UserFilter filter) {
+        Specification<User> spec = filter.toSpecification();
+        if (spec == null) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_NDJSON);
+        StreamingResponseBody body = out -> userPurgeService.purge(spec, out);
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+    
     @Operation(
         summary = "Check if user exists by email",
         description = "Verify if a user with the given email exists"
@@ -318,4 +1061,76 @@ public class UserController {
         boolean exists = userService.userExistsByEmail(email);
         return new ResponseEntity<>(exists, HttpStatus.OK);
     }
+    
+    @Operation(
+        summary = "User cache statistics",
+        description = "Hit, miss and eviction counters for the user lookup cache tiers and the email existence filter"
+    )
+    @GetMapping("/cache/stats")
+    public ResponseEntity<UserCacheStats> getCacheStats() {
+        return new ResponseEntity<>(userService.getCacheStats(), HttpStatus.OK);
+    }
+    
+    private static boolean hasValidators(WebRequest request) {
+        return request.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                || request.getHeader(HttpHeaders.IF_MODIFIED_SINCE) != null;
+    }
+    
+    /**
+     * Evaluates If-None-Match / If-Modified-Since against the stamp and sets ETag, Last-Modified
+     * and {@code Vary: Accept} on the response either way.
+     */
+    private static boolean notModified(WebRequest request, ChangeStamp stamp) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return request.checkNotModified(stamp.etag(), stamp.lastModifiedMillis());
+    }
+    
+    /**
+     * Page stamps cost a count over the whole filter, so they are only computed for requests
+     * that carry validators. A client asks for its first page ETag with any If-None-Match.
+     */
+    private boolean pageNotModified(WebRequest request, Specification<User> filter, List<String> fields) {
+        return hasValidators(request)
+                && notModified(request, userService.getChangeStamp(filter).forProjection(fields));
+    }
+    
+    private static ResponseEntity<User> withValidators(WebRequest request, User user) {
+        if (notModified(request, ChangeStamp.ofUser(user))) {
+            return new ResponseEntity<>(HttpStatus.NOT_MODIFIED);
+        }
+        return new ResponseEntity<>(user, HttpStatus.OK);
+    }
+    
+    private ResponseEntity<Page<?>> projected(Supplier<Page<Map<String, Object>>> query) {
+        try {
+            return new ResponseEntity<>(query.get(), HttpStatus.OK);
+        } catch (IllegalArgumentException | InvalidDataAccessApiUsageException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+    
+    private ResponseEntity<CursorPage<User>> scroll(String cursor, int size, String sortBy, String sortDir,
+            Set<String> sortKeys, BiFunction<ScrollPosition, Sort, Window<User>> query, Supplier<Long> count) {
+        if (size < 1 || !sortKeys.contains(sortBy)) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        Sort.Direction direction = sortDir.equalsIgnoreCase("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, sortBy);
+        if (!sortBy.equals("id")) {
+            sort = sort.and(Sort.by(direction, "id"));
+        }
+        
+        try {
+            ScrollPosition position = cursorCodec.decode(cursor, sort);
+            Window<User> window = query.apply(position, sort);
+            String nextCursor = window.hasNext() ? cursorCodec.encode(window.positionAt(window.size() - 1)) : null;
+            Long total = count != null ? count.get() : null;
+            return new ResponseEntity<>(
+                    new CursorPage<>(window.getContent(), window.size(), window.hasNext(), nextCursor, total), HttpStatus.OK);
+        } catch (IllegalArgumentException | PropertyReferenceException | InvalidDataAccessApiUsageException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
 }
\ No newline at end of file
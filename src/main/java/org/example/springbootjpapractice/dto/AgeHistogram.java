@@ -0,0 +1,16 @@
+package org.example.springbootjpapractice.dto;
+
+import java.util.List;
+
+public record AgeHistogram(
+        long users,
+        long unknownAge,
+        List<Bucket> buckets
+) {
+
+    /**
+     * Users aged {@code fromAge} up to but not including {@code toAge}.
+     */
+    public record Bucket(int fromAge, int toAge, long count) {
+    }
+}
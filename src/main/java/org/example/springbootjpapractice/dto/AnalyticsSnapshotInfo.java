@@ -0,0 +1,13 @@
+package org.example.springbootjpapractice.dto;
+
+import java.time.Instant;
+
+public record AnalyticsSnapshotInfo(
+        int rows,
+        int cities,
+        int domains,
+        Instant loadedAt,
+        long loadMillis,
+        boolean stale
+) {
+}
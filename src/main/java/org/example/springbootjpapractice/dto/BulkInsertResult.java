@@ -0,0 +1,27 @@
+package org.example.springbootjpapractice.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk upload. {@code rejectedRows} lists rejected rows by index, up to a limit;
+ * {@code truncated} is set when more were rejected than are listed.
+ */
+public record BulkInsertResult(int received, int accepted, int rejected, List<RowResult> rejectedRows,
+                               boolean truncated) {
+
+    public enum Status {
+        ACCEPTED,
+        REJECTED
+    }
+
+    public record RowResult(int index, Status status, Long id, String email, String error) {
+
+        public static RowResult accepted(int index, Long id, String email) {
+            return new RowResult(index, Status.ACCEPTED, id, email, null);
+        }
+
+        public static RowResult rejected(int index, String email, String error) {
+            return new RowResult(index, Status.REJECTED, null, email, error);
+        }
+    }
+}
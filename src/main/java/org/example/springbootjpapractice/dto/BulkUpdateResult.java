@@ -0,0 +1,4 @@
+package org.example.springbootjpapractice.dto;
+
+public record BulkUpdateResult(int updated) {
+}
@@ -0,0 +1,73 @@
+package org.example.springbootjpapractice.dto;
+
+import org.example.springbootjpapractice.entity.User;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Validators for conditional requests. A user's ETag is its id and version; a page's is the
+ * row count and latest {@code updatedAt} of everything its filter matches, which changes on any
+ * insert, update or delete in that set, plus the selected fields. Both are weak, since the same
+ * data goes out as JSON, Smile or CBOR, gzipped or not, and a strong ETag would also keep Tomcat
+ * from compressing the response. Pages carry no Last-Modified, since a delete does not move the
+ * latest {@code updatedAt}.
+ */
+public record ChangeStamp(String etag, LocalDateTime lastModified) {
+
+    public static ChangeStamp ofUser(Long id, Long version, LocalDateTime updatedAt) {
+        return new ChangeStamp("W/\"" + id + "-" + version + "\"", updatedAt);
+    }
+
+    public static ChangeStamp ofUser(User user) {
+        return ofUser(user.getId(), user.getVersion(), user.getUpdatedAt());
+    }
+
+    public static ChangeStamp ofRows(long count, LocalDateTime lastUpdated) {
+        long millis = lastUpdated == null ? 0 : lastUpdated.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return new ChangeStamp("W/\"" + count + "-" + millis + "\"", null);
+    }
+
+    /**
+     * This page stamp for a response projected to {@code fields}; unchanged for full users.
+     */
+    public ChangeStamp forProjection(List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return this;
+        }
+        String projection = Integer.toHexString(String.join(",", fields).hashCode());
+        return new ChangeStamp(etag.substring(0, etag.length() - 1) + "-" + projection + "\"", lastModified);
+    }
+
+    /**
+     * Last-Modified as epoch milliseconds, or -1 if there is none.
+     */
+    public long lastModifiedMillis() {
+        return lastModified == null ? -1 : lastModified.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * The version encoded in an If-Match value produced by {@link #ofUser}, or null for {@code *}.
+     * The weak marker is ignored: the version alone decides whether the update applies.
+     * Throws {@link IllegalArgumentException} if the value is not an ETag of this user.
+     */
+    public static Long parseVersion(String ifMatch, Long id) {
+        String value = ifMatch.trim();
+        if (value.equals("*")) {
+            return null;
+        }
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        String prefix = "\"" + id + "-";
+        if (!value.startsWith(prefix) || !value.endsWith("\"")) {
+            throw new IllegalArgumentException("Not an ETag of user " + id + ": " + ifMatch);
+        }
+        try {
+            return Long.parseLong(value.substring(prefix.length(), value.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an ETag of user " + id + ": " + ifMatch);
+        }
+    }
+}
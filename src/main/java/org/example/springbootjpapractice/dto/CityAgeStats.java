@@ -0,0 +1,13 @@
+package org.example.springbootjpapractice.dto;
+
+import java.util.Map;
+
+public record CityAgeStats(
+        String city,
+        long count,
+        Integer minAge,
+        Integer maxAge,
+        Double averageAge,
+        Map<String, Integer> percentiles
+) {
+}
@@ -0,0 +1,10 @@
+package org.example.springbootjpapractice.dto;
+
+public record CityStats(
+        String city,
+        long count,
+        Integer minAge,
+        Integer maxAge,
+        Double averageAge
+) {
+}
@@ -0,0 +1,9 @@
+package org.example.springbootjpapractice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CursorPage<T>(List<T> content, int size, boolean hasNext, String nextCursor, Long totalElements) {
+}
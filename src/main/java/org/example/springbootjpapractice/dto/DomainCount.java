@@ -0,0 +1,8 @@
+package org.example.springbootjpapractice.dto;
+
+public record DomainCount(
+        String domain,
+        long count,
+        double share
+) {
+}
@@ -0,0 +1,22 @@
+package org.example.springbootjpapractice.dto;
+
+public record PendingWrite(String trackingId, State state, String email, Long userId, String error) {
+
+    public enum State {
+        QUEUED,
+        CREATED,
+        REJECTED
+    }
+
+    public static PendingWrite queued(String trackingId, String email) {
+        return new PendingWrite(trackingId, State.QUEUED, email, null, null);
+    }
+
+    public PendingWrite created(Long userId) {
+        return new PendingWrite(trackingId, State.CREATED, email, userId, null);
+    }
+
+    public PendingWrite rejected(String error) {
+        return new PendingWrite(trackingId, State.REJECTED, email, null, error);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.springbootjpapractice.dto;
+
+public record PurgeProgress(
+        long matched,
+        long deleted,
+        boolean done
+) {
+}
@@ -0,0 +1,10 @@
+package org.example.springbootjpapractice.dto;
+
+import java.time.Instant;
+
+public record SnapshotInfo(
+        String path,
+        long sizeBytes,
+        Instant createdAt
+) {
+}
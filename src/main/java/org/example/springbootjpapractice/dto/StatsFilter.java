@@ -0,0 +1,27 @@
+package org.example.springbootjpapractice.dto;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Query-parameter filters for the analytics endpoints. All present filters must match.
+ */
+public record StatsFilter(
+        @Parameter(description = "Only users in this city", example = "Chicago")
+        String city,
+        @Parameter(description = "Only users with an email in this domain", example = "example.com")
+        String emailDomain,
+        @Parameter(description = "Only users created on or after this date", example = "2024-01-01")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate createdFrom,
+        @Parameter(description = "Only users created before this date", example = "2025-01-01")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate createdBefore
+) {
+
+    public static StatsFilter none() {
+        return new StatsFilter(null, null, null, null);
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.springbootjpapractice.dto;
+
+public record UserCacheStats(
+        long localHits,
+        long localMisses,
+        long localEvictions,
+        long localSize,
+        long sharedHits,
+        long sharedMisses,
+        long existenceFilterNegatives,
+        long databaseLoads) {
+}
@@ -0,0 +1,38 @@
+package org.example.springbootjpapractice.dto;
+
+import io.swagger.v3.oas.annotations.Parameter;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.repository.UserSpecifications;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDate;
+
+/**
+ * Query-parameter filters for set-based operations (bulk PATCH and DELETE). All present
+ * filters must match.
+ */
+public record UserFilter(
+        @Parameter(description = "Only users in this city", example = "Chicago")
+        String city,
+        @Parameter(description = "Only users with exactly this name")
+        String name,
+        @Parameter(description = "Only users at least this old")
+        Integer minAge,
+        @Parameter(description = "Only users at most this old")
+        Integer maxAge,
+        @Parameter(description = "Only users with an email in this domain", example = "@example.com")
+        String emailDomain,
+        @Parameter(description = "Only users created before this date", example = "2024-01-01")
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+        LocalDate createdBefore
+) {
+
+    /**
+     * The filters as a specification, or null if no filter was given.
+     */
+    public Specification<User> toSpecification() {
+        return UserSpecifications.matching(city, name, minAge, maxAge, emailDomain,
+                createdBefore == null ? null : createdBefore.atStartOfDay());
+    }
+}
@@ -0,0 +1,44 @@
+package org.example.springbootjpapractice.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/users/search}. Every filter is optional and all given filters must
+ * match. Results are scrolled with a keyset cursor in the requested sort order.
+ */
+public record UserSearchRequest(
+        @Schema(description = "Exact city", example = "Chicago")
+        String city,
+        @Schema(description = "Any of these cities", example = "[\"Chicago\", \"Boston\"]")
+        List<String> cities,
+        @Schema(description = "Exact name", example = "John Doe")
+        String name,
+        @Schema(description = "Case-insensitive part of the name", example = "jo")
+        String nameContains,
+        @Schema(description = "Minimum age, inclusive", example = "25")
+        Integer minAge,
+        @Schema(description = "Maximum age, inclusive", example = "40")
+        Integer maxAge,
+        @Schema(description = "Email domain", example = "@example.com")
+        String emailDomain,
+        @Schema(description = "Created at or after", example = "2024-01-01T00:00:00")
+        LocalDateTime createdAfter,
+        @Schema(description = "Created before", example = "2030-01-01T00:00:00")
+        LocalDateTime createdBefore,
+        @Schema(description = "Sort field (id, name, email, age, city, createdAt, updatedAt)", example = "name")
+        String sortBy,
+        @Schema(description = "Sort direction (asc, desc)", example = "asc")
+        String sortDir,
+        @Schema(description = "Page size", example = "20")
+        Integer size,
+        @Schema(description = "Cursor from the previous page's nextCursor")
+        String cursor,
+        @Schema(description = "Fields to return; omit for full users", example = "[\"id\", \"name\", \"city\"]")
+        List<String> fields,
+        @Schema(description = "Also return the total number of matches", example = "false")
+        boolean withCount
+) {
+}
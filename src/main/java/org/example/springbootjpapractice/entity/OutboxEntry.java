@@ -0,0 +1,76 @@
+package org.example.springbootjpapractice.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the user change outbox. Rows are written with the change they describe and get
+ * their feed {@code position} from the relay once committed; the outbox components read and
+ * write them with plain JDBC, the mapping defines the table.
+ */
+@Entity
+@Table(name = "user_outbox", indexes = {
+        @Index(name = "idx_user_outbox_position", columnList = "position", unique = true),
+        @Index(name = "idx_user_outbox_created_at", columnList = "created_at")
+})
+public class OutboxEntry {
+    
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        // Rows changed by a set-based statement: re-read the user
+        CHANGED,
+        // Unknown rows changed: re-read everything
+        RESYNC
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "position")
+    private Long position;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "type", nullable = false, length = 16)
+    private Type type;
+    
+    @Column(name = "user_id")
+    private Long userId;
+    
+    // UserSnapshot as JSON: the row after the change, or before it for deletes
+    @Column(name = "payload", length = 2000)
+    private String payload;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    protected OutboxEntry() {
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public Long getPosition() {
+        return position;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public String getPayload() {
+        return payload;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -1,14 +1,35 @@
 package org.example.springbootjpapractice.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.DynamicUpdate;
+
 import java.time.LocalDateTime;
+import java.util.Locale;
 
+/**
+ * A user. Hibernate reads and writes the fields directly, and the build enhances this class so
+ * it tracks its own changed fields instead of being compared against a snapshot at every flush.
+ * Setters only set: {@code createdAt} and {@code updatedAt} are stamped by {@link UserAuditListener}
+ * when the row is written.
+ */
 @Entity
-@Table(name = "users")
+@Access(AccessType.FIELD)
+@EntityListeners(UserAuditListener.class)
+@DynamicUpdate
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_city", columnList = "city"),
+        @Index(name = "idx_users_age", columnList = "age"),
+        @Index(name = "idx_users_created_at", columnList = "created_at"),
+        @Index(name = "idx_users_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_users_name_city", columnList = "name, city"),
+        @Index(name = "idx_users_name_lower", columnList = "name_lower"),
+        @Index(name = "idx_users_email_reversed", columnList = "email_reversed")
+})
 public class User {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "name", nullable = false, length = 100)
@@ -29,14 +50,23 @@ public class User {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    @Version
+    @Column(name = "version")
+    private Long version;
+    
+    // Derived search columns, maintained on every write so finders can use plain B-tree indexes
+    @Column(name = "name_lower", length = 100)
+    private String nameLower;
+    
+    @Column(name = "email_reversed", length = 150)
+    private String emailReversed;
+    
     public User() {
     }
     
     public User(String name, String email) {
         this.name = name;
         this.email = email;
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
     }
     
     public User(String name, String email, Integer age, String city) {
@@ -44,8 +74,6 @@ public class User {
         this.email = email;
         this.age = age;
         this.city = city;
-        this.createdAt = LocalDateTime.now();
-        this.updatedAt = LocalDateTime.now();
     }
     public Long getId() {
         return id;
@@ -61,7 +89,6 @@ public class User {
     
     public void setName(String name) {
         this.name = name;
-        this.updatedAt = LocalDateTime.now();
     }
     
     public String getEmail() {
@@ -70,7 +97,6 @@ public class User {
     
     public void setEmail(String email) {
         this.email = email;
-        this.updatedAt = LocalDateTime.now();
     }
     
     public Integer getAge() {
@@ -79,7 +105,6 @@ public class User {
     
     public void setAge(Integer age) {
         this.age = age;
-        this.updatedAt = LocalDateTime.now();
     }
     
     public String getCity() {
@@ -88,7 +113,6 @@ public class User {
     
     public void setCity(String city) {
         this.city = city;
-        this.updatedAt = LocalDateTime.now();
     }
     
     public LocalDateTime getCreatedAt() {
@@ -107,6 +131,21 @@ public class User {
         this.updatedAt = updatedAt;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    @PrePersist
+    @PreUpdate
+    void deriveSearchColumns() {
+        this.nameLower = name != null ? name.toLowerCase(Locale.ROOT) : null;
+        this.emailReversed = email != null ? new StringBuilder(email).reverse().toString() : null;
+    }
+    
     @Override
     public String toString() {
         return "User{" +
@@ -117,6 +156,7 @@ public class User {
                 ", city='" + city + '\'' +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
+                ", version=" + version +
                 '}';
     }
 }
@@ -0,0 +1,33 @@
+package org.example.springbootjpapractice.entity;
+
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+
+/**
+ * Stamps {@link User} timestamps once per write from the application's {@link Clock}: both on
+ * insert, keeping a {@code createdAt} the caller already set, and {@code updatedAt} on update.
+ * Hibernate gets instances from Spring, which injects the clock.
+ */
+public class UserAuditListener {
+
+    @Autowired(required = false)
+    private Clock clock = Clock.systemDefaultZone();
+
+    @PrePersist
+    void onInsert(User user) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (user.getCreatedAt() == null) {
+            user.setCreatedAt(now);
+        }
+        user.setUpdatedAt(now);
+    }
+
+    @PreUpdate
+    void onUpdate(User user) {
+        user.setUpdatedAt(LocalDateTime.now(clock));
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.springbootjpapractice.event;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.springbootjpapractice.entity.User;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Turns Hibernate's post-insert/update/delete callbacks for {@link User} into
+ * {@link UserChangedEvent}s, so every write path (repository saves, bulk persists,
+ * merges) is observed without each caller having to remember to publish.
+ */
+@Component
+public class UserChangeListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof User) {
+            eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.CREATED,
+                    null, snapshot(event.getPersister(), event.getId(), event.getState())));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof User) {
+            eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.UPDATED,
+                    snapshot(event.getPersister(), event.getId(), event.getOldState()),
+                    snapshot(event.getPersister(), event.getId(), event.getState())));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof User) {
+            eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.DELETED,
+                    snapshot(event.getPersister(), event.getId(), event.getDeletedState()), null));
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private static UserSnapshot snapshot(EntityPersister persister, Object id, Object[] state) {
+        if (state == null) {
+            return null;
+        }
+        return new UserSnapshot(
+                (Long) id,
+                (String) state[persister.getPropertyIndex("name")],
+                (String) state[persister.getPropertyIndex("email")],
+                (Integer) state[persister.getPropertyIndex("age")],
+                (String) state[persister.getPropertyIndex("city")],
+                (LocalDateTime) state[persister.getPropertyIndex("createdAt")],
+                (LocalDateTime) state[persister.getPropertyIndex("updatedAt")],
+                (Long) state[persister.getPropertyIndex("version")]);
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.springbootjpapractice.event;
+
+/**
+ * Published for every insert, update and delete of a single {@code User}, inside the writing
+ * transaction. {@code before} is null for inserts and {@code after} is null for deletes.
+ * Listeners that must only see committed data should use
+ * {@code @TransactionalEventListener}.
+ */
+public record UserChangedEvent(Type type, UserSnapshot before, UserSnapshot after) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+
+    public Long id() {
+        return after != null ? after.id() : before.id();
+    }
+}
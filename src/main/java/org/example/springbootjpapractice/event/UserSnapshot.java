@@ -0,0 +1,18 @@
+package org.example.springbootjpapractice.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * Column values of a {@code User} row at the moment Hibernate wrote it.
+ */
+public record UserSnapshot(
+        Long id,
+        String name,
+        String email,
+        Integer age,
+        String city,
+        LocalDateTime createdAt,
+        LocalDateTime updatedAt,
+        Long version
+) {
+}
@@ -0,0 +1,15 @@
+package org.example.springbootjpapractice.event;
+
+import java.util.Collection;
+
+/**
+ * Published by set-based statements that change or remove many users without loading them,
+ * so no {@link UserChangedEvent} is raised per row. {@code ids} is null when the affected
+ * rows are not known, in which case listeners should treat every user as changed.
+ */
+public record UsersBulkChangedEvent(Collection<Long> ids) {
+
+    public static UsersBulkChangedEvent unknown() {
+        return new UsersBulkChangedEvent(null);
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.springbootjpapractice.outbox;
+
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gives committed outbox rows their feed positions. Outbox ids are handed out when a
+ * transaction inserts, not when it commits, so a slow transaction can commit a lower id after a
+ * consumer has read past it. This single thread only ever sees committed rows and numbers them
+ * in the order it finds them, so positions never appear behind a consumer's cursor.
+ * It runs when a user change commits, and every {@code relay-interval} for rows written elsewhere.
+ */
+@Component
+public class OutboxRelay implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    @Autowired
+    private Clock clock;
+
+    @Value("${app.users.changes.relay-interval:1s}")
+    private Duration relayInterval;
+
+    @Value("${app.users.changes.relay-batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.users.changes.retention:7d}")
+    private Duration retention;
+
+    private final Semaphore wakeUp = new Semaphore(0);
+
+    private volatile boolean running;
+    private long lastPosition;
+    private Thread relay;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        wake();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        wake();
+    }
+
+    private void wake() {
+        if (wakeUp.availablePermits() == 0) {
+            wakeUp.release();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        lastPosition = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(position), 0) FROM user_outbox", Long.class);
+        userChangeFeed.published(lastPosition);
+        running = true;
+        relay = Thread.ofPlatform().name("user-outbox-relay").daemon().start(this::relayLoop);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        // Woken rather than interrupted: an interrupt during file I/O closes H2's file channel
+        wakeUp.release();
+        try {
+            relay.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void relayLoop() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        while (running) {
+            try {
+                wakeUp.tryAcquire(relayInterval.toMillis(), TimeUnit.MILLISECONDS);
+                wakeUp.drainPermits();
+                long assigned;
+                do {
+                    long from = lastPosition;
+                    lastPosition = transaction.execute(status -> assignPositions(from));
+                    assigned = lastPosition - from;
+                    if (assigned > 0) {
+                        userChangeFeed.published(lastPosition);
+                    }
+                } while (assigned == batchSize && running);
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Outbox relay failed, retrying in {}", relayInterval, e);
+            }
+        }
+    }
+
+    /**
+     * Numbers up to {@code relay-batch-size} unpositioned rows after {@code from} and returns the
+     * last position used.
+     */
+    private long assignPositions(long from) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM user_outbox WHERE position IS NULL ORDER BY id LIMIT ?", Long.class, batchSize);
+        long position = from;
+        List<Object[]> updates = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            updates.add(new Object[]{++position, id});
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE user_outbox SET position = ? WHERE id = ?", updates);
+        }
+        return position;
+    }
+
+    /**
+     * Drops relayed rows older than {@code app.users.changes.retention}. Consumers whose cursor
+     * falls before the oldest remaining row are told to start over.
+     */
+    @Scheduled(fixedDelayString = "${app.users.changes.prune-interval:1h}",
+            initialDelayString = "${app.users.changes.prune-interval:1h}")
+    public void prune() {
+        int removed = jdbcTemplate.update("DELETE FROM user_outbox WHERE position IS NOT NULL AND created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now(clock).minus(retention)));
+        if (removed > 0) {
+            log.info("Pruned {} change feed entries older than {}", removed, retention);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.springbootjpapractice.outbox;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reads the change feed: relayed outbox rows in position order, each written as one NDJSON line
+ * {@code {"position":..,"type":..,"userId":..,"occurredAt":..,"user":{..}}}. A consumer keeps the
+ * position of the last line it processed and asks for the changes after it; when there are none
+ * yet it can wait for the relay to publish more instead of polling.
+ */
+@Component
+public class UserChangeFeed {
+
+    private static final String SELECT = "SELECT position, type, user_id, payload, created_at FROM user_outbox "
+            + "WHERE position > ? ORDER BY position LIMIT ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private volatile long lastPosition;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    public long getLastPosition() {
+        return lastPosition;
+    }
+
+    /**
+     * True if the changes right after {@code after} are no longer (or never were) in the feed:
+     * pruned by retention, or a cursor from before the table was reset. The consumer has to
+     * re-read the users and continue from {@link #getLastPosition()}.
+     */
+    public boolean isExpired(long after) {
+        long last = lastPosition;
+        if (after > last) {
+            return true;
+        }
+        Long oldest = jdbcTemplate.queryForObject("SELECT MIN(position) FROM user_outbox", Long.class);
+        return after < (oldest != null ? oldest : last + 1) - 1;
+    }
+
+    /**
+     * Completes once a change after {@code after} has been published, straight away if one already has.
+     * Cancel the future to stop waiting.
+     */
+    public CompletableFuture<Long> awaitAfter(long after) {
+        Waiter waiter = new Waiter(after, new CompletableFuture<>());
+        waiters.add(waiter);
+        waiter.future().whenComplete((position, error) -> waiters.remove(waiter));
+        // Checked after registering, so a publish in between is not missed
+        long last = lastPosition;
+        if (last > after) {
+            waiter.future().complete(last);
+        }
+        return waiter.future();
+    }
+
+    /**
+     * Called by the relay once positions up to {@code position} are committed.
+     */
+    void published(long position) {
+        lastPosition = position;
+        for (Iterator<Waiter> it = waiters.iterator(); it.hasNext(); ) {
+            Waiter waiter = it.next();
+            if (waiter.after() < position) {
+                it.remove();
+                waiter.future().complete(position);
+            }
+        }
+    }
+
+    /**
+     * Writes up to {@code limit} changes after {@code after} and returns how many there were.
+     */
+    public int write(long after, int limit, OutputStream out) throws IOException {
+        int[] written = {0};
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            jdbcTemplate.query(SELECT, rs -> {
+                try {
+                    generator.writeStartObject();
+                    generator.writeNumberField("position", rs.getLong(1));
+                    generator.writeStringField("type", rs.getString(2));
+                    long userId = rs.getLong(3);
+                    if (rs.wasNull()) {
+                        generator.writeNullField("userId");
+                    } else {
+                        generator.writeNumberField("userId", userId);
+                    }
+                    generator.writeStringField("occurredAt",
+                            rs.getTimestamp(5).toLocalDateTime().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                    // Stored as JSON already, so copied through without a round trip
+                    String payload = rs.getString(4);
+                    generator.writeFieldName("user");
+                    if (payload == null) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeRawValue(payload);
+                    }
+                    generator.writeEndObject();
+                    generator.writeRaw('\n');
+                    written[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, after, limit);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return written[0];
+    }
+
+    private record Waiter(long after, CompletableFuture<Long> future) {
+    }
+}
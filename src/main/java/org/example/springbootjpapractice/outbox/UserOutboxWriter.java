@@ -0,0 +1,131 @@
+package org.example.springbootjpapractice.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.springbootjpapractice.entity.OutboxEntry;
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes every user change into the {@code user_outbox} table in the transaction that makes it,
+ * so the change feed has exactly the committed changes. Changes are buffered per transaction and
+ * inserted as one JDBC batch when Hibernate completes it: after the commit-time flush, whose
+ * inserts and updates raise events too, and before the connection commits. Writes outside a
+ * transaction go straight in.
+ */
+@Component
+public class UserOutboxWriter {
+
+    private static final String INSERT = "INSERT INTO user_outbox (type, user_id, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Clock clock;
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        UserSnapshot state = event.after() != null ? event.after() : event.before();
+        OutboxEntry.Type type = switch (event.type()) {
+            case CREATED -> OutboxEntry.Type.CREATED;
+            case UPDATED -> OutboxEntry.Type.UPDATED;
+            case DELETED -> OutboxEntry.Type.DELETED;
+        };
+        append(Collections.singletonList(row(type, event.id(), toJson(state))));
+    }
+
+    @EventListener
+    public void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        if (event.ids() == null) {
+            append(Collections.singletonList(row(OutboxEntry.Type.RESYNC, null, null)));
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(event.ids().size());
+        for (Long id : event.ids()) {
+            rows.add(row(OutboxEntry.Type.CHANGED, id, null));
+        }
+        append(rows);
+    }
+
+    private void append(List<Object[]> rows) {
+        // Open-in-view binds an EntityManager to requests without a transaction, and it never completes one
+        EntityManager entityManager = TransactionSynchronizationManager.isActualTransactionActive()
+                ? EntityManagerFactoryUtils.getTransactionalEntityManager(entityManagerFactory) : null;
+        if (entityManager == null) {
+            jdbcTemplate.batchUpdate(INSERT, rows);
+            return;
+        }
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            ActionQueue actionQueue = entityManager.unwrap(SessionImplementor.class).getActionQueue();
+            actionQueue.registerProcess((BeforeTransactionCompletionProcess) buffer);
+            actionQueue.registerProcess((AfterTransactionCompletionProcess) buffer);
+        }
+        if (buffer.written) {
+            jdbcTemplate.batchUpdate(INSERT, rows);
+        } else {
+            buffer.rows.addAll(rows);
+        }
+    }
+
+    private String toJson(UserSnapshot snapshot) {
+        try {
+            return objectMapper.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize change of user " + snapshot.id(), e);
+        }
+    }
+
+    private Object[] row(OutboxEntry.Type type, Long userId, String payload) {
+        return new Object[]{type.name(), userId, payload, Timestamp.valueOf(LocalDateTime.now(clock))};
+    }
+
+    private class Buffer implements BeforeTransactionCompletionProcess, AfterTransactionCompletionProcess {
+
+        private final List<Object[]> rows = new ArrayList<>();
+        private boolean written;
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session) {
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT, rows);
+            }
+            written = true;
+        }
+
+        @Override
+        public void doAfterTransactionCompletion(boolean success, SharedSessionContractImplementor session) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(UserOutboxWriter.this);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.example.springbootjpapractice.repository;
+
+import org.example.springbootjpapractice.dto.ChangeStamp;
+import org.example.springbootjpapractice.entity.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface UserProjectionRepository {
+
+    /**
+     * Runs the query selecting only the given fields, returning one map per row keyed by field
+     * name in the requested order. No entities are loaded into the persistence context.
+     */
+    Page<Map<String, Object>> findProjected(Specification<User> spec, List<String> fields, Pageable pageable);
+
+    /**
+     * ETag validator of the single user matching {@code spec}, read from its id, version and
+     * updatedAt columns only.
+     */
+    Optional<ChangeStamp> findUserStamp(Specification<User> spec);
+
+    /**
+     * ETag validator of everything {@code spec} matches: one {@code count(*), max(updated_at)} query.
+     */
+    ChangeStamp findRowsStamp(Specification<User> spec);
+}
@@ -1,24 +1,66 @@
 package org.example.springbootjpapractice.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.springbootjpapractice.entity.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.jpa.repository.query.Procedure;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>,
+        UserProjectionRepository, UserSearchRepository, UserWriteRepository {
     
     @Query("SELECT u FROM User u WHERE u.email = :email")
     Optional<User> findByEmail(@Param("email") String email);
     
-    @Query("SELECT u FROM User u WHERE LOWER(u.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    @Query("SELECT u FROM User u WHERE u.email IN :emails")
+    List<User> findByEmailIn(@Param("emails") Collection<String> emails);
+    
+    boolean existsByEmail(String email);
+    
+    @Query("SELECT u.email FROM User u")
+    Stream<String> streamAllEmails();
+    
+    @Query("SELECT u.id, u.name FROM User u")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<Object[]> streamAllIdsAndNames();
+    
+    @Override
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Page<User> findAll(Pageable pageable);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    Stream<User> streamAllOrderById();
+    
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
+    @Query("SELECT u FROM User u WHERE u.nameLower LIKE LOWER(CONCAT('%', :name, '%'))")
     List<User> findByNameContainingIgnoreCase(@Param("name") String name);
     
     @Query("SELECT u FROM User u WHERE u.city = :city")
@@ -36,39 +78,128 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT COUNT(u) FROM User u WHERE u.city = :city")
     Long countByCity(@Param("city") String city);
     
-    @Query("SELECT u FROM User u WHERE u.email LIKE CONCAT('%', :domain)")
-    List<User> findByEmailDomain(@Param("domain") String domain);
+    default List<User> findByEmailDomain(String domain) {
+        return findByEmailReversedStartingWith(reverse(domain));
+    }
+    
+    List<User> findByEmailReversedStartingWith(String reversedDomain);
     
     @Query(value = "SELECT * FROM users WHERE age > :age ORDER BY created_at DESC", nativeQuery = true)
     List<User> findUsersOlderThanOrderByCreatedAt(@Param("age") Integer age);
     
-    @Query("SELECT u FROM User u WHERE u.createdAt >= CURRENT_DATE - :days DAY")
-    List<User> findUsersCreatedInLastDays(@Param("days") Long days);
+    default List<User> findUsersCreatedInLastDays(Long days, LocalDate today) {
+        return findByCreatedAtGreaterThanEqual(startOfDayDaysAgo(days, today));
+    }
+    
+    List<User> findByCreatedAtGreaterThanEqual(LocalDateTime since);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("SELECT u FROM User u WHERE u.city = :city")
     Page<User> findByCity(@Param("city") String city, Pageable pageable);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("SELECT u FROM User u WHERE u.age BETWEEN :minAge AND :maxAge")
     Page<User> findByAgeBetween(@Param("minAge") Integer minAge, @Param("maxAge") Integer maxAge, Pageable pageable);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("SELECT u FROM User u WHERE u.age > :age")
     Page<User> findUsersOlderThan(@Param("age") Integer age, Pageable pageable);
     
-    @Query("SELECT u FROM User u WHERE LOWER(u.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT u FROM User u WHERE u.nameLower LIKE LOWER(CONCAT('%', :name, '%'))")
     Page<User> findByNameContainingIgnoreCase(@Param("name") String name, Pageable pageable);
     
-    @Query("SELECT u FROM User u WHERE u.email LIKE CONCAT('%', :domain)")
-    Page<User> findByEmailDomain(@Param("domain") String domain, Pageable pageable);
+    /**
+     * Names with a word starting with {@code prefix}, the same matches as the name index's
+     * prefix mode. The first alternative is a leading-prefix LIKE the {@code name_lower} index serves.
+     */
+    default Page<User> findByNameWordStartingWithIgnoreCase(String prefix, Pageable pageable) {
+        String escaped = UserSpecifications.escapeLike(prefix.toLowerCase(Locale.ROOT));
+        return findByNameLowerWordStartingWith(escaped + "%", "% " + escaped + "%", pageable);
+    }
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT u FROM User u WHERE u.nameLower LIKE :prefix ESCAPE '\\' OR u.nameLower LIKE :wordPrefix ESCAPE '\\'")
+    Page<User> findByNameLowerWordStartingWith(@Param("prefix") String prefix, @Param("wordPrefix") String wordPrefix,
+            Pageable pageable);
+    
+    default Page<User> findByEmailDomain(String domain, Pageable pageable) {
+        return findByEmailReversedStartingWith(reverse(domain), pageable);
+    }
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Page<User> findByEmailReversedStartingWith(String reversedDomain, Pageable pageable);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query("SELECT u FROM User u WHERE u.name = :name AND u.city = :city")
     Page<User> findByNameAndCity(@Param("name") String name, @Param("city") String city, Pageable pageable);
     
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
     @Query(value = "SELECT * FROM users WHERE age > :age ORDER BY created_at DESC", nativeQuery = true)
     Page<User> findUsersOlderThanOrderByCreatedAt(@Param("age") Integer age, Pageable pageable);
     
-    @Query("SELECT u FROM User u WHERE u.createdAt >= CURRENT_DATE - :days DAY")
-    Page<User> findUsersCreatedInLastDays(@Param("days") Long days, Pageable pageable);
+    default Page<User> findUsersCreatedInLastDays(Long days, LocalDate today, Pageable pageable) {
+        return findByCreatedAtGreaterThanEqual(startOfDayDaysAgo(days, today), pageable);
+    }
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    Page<User> findByCreatedAtGreaterThanEqual(LocalDateTime since, Pageable pageable);
+    
+    Window<User> findAllBy(ScrollPosition position, Limit limit, Sort sort);
+    
+    Window<User> findByCity(String city, ScrollPosition position, Limit limit, Sort sort);
+    
+    Window<User> findByAgeBetween(Integer minAge, Integer maxAge, ScrollPosition position, Limit limit, Sort sort);
+    
+    Window<User> findByAgeGreaterThan(Integer age, ScrollPosition position, Limit limit, Sort sort);
+    
+    default Window<User> findByNameContainingIgnoreCase(String name, ScrollPosition position, Limit limit, Sort sort) {
+        return findByNameLowerContaining(name.toLowerCase(Locale.ROOT), position, limit, sort);
+    }
+    
+    Window<User> findByNameLowerContaining(String nameLower, ScrollPosition position, Limit limit, Sort sort);
+    
+    default Window<User> findByEmailDomain(String domain, ScrollPosition position, Limit limit, Sort sort) {
+        return findByEmailReversedStartingWith(reverse(domain), position, limit, sort);
+    }
+    
+    Window<User> findByEmailReversedStartingWith(String reversedDomain, ScrollPosition position, Limit limit, Sort sort);
+    
+    Window<User> findByNameAndCity(String name, String city, ScrollPosition position, Limit limit, Sort sort);
+    
+    Window<User> findByCreatedAtGreaterThanEqual(LocalDateTime since, ScrollPosition position, Limit limit, Sort sort);
+    
+    long countByAgeBetween(Integer minAge, Integer maxAge);
+    
+    long countByAgeGreaterThan(Integer age);
+    
+    default long countByNameContainingIgnoreCase(String name) {
+        return countByNameLowerContaining(name.toLowerCase(Locale.ROOT));
+    }
+    
+    long countByNameLowerContaining(String nameLower);
+    
+    default long countByEmailDomain(String domain) {
+        return countByEmailReversedStartingWith(reverse(domain));
+    }
+    
+    long countByEmailReversedStartingWith(String reversedDomain);
+    
+    long countByNameAndCity(String name, String city);
+    
+    @Transactional
+    @Modifying
+    @Query(value = "TRUNCATE TABLE users", nativeQuery = true)
+    void truncate();
+    
+    @Query("SELECT u.city, u.age, COUNT(u) FROM User u WHERE u.city IS NOT NULL GROUP BY u.city, u.age")
+    List<Object[]> countByCityAndAge();
+    
+    private static String reverse(String value) {
+        return new StringBuilder(value).reverse().toString();
+    }
     
-    @Query(value = "CALL get_user_count_by_city(:city_name)", nativeQuery = true) // This is how to call SP
-    Integer getUserCountByCity(@Param("city_name") String cityName);
+    private static LocalDateTime startOfDayDaysAgo(Long days, LocalDate today) {
+        return today.minusDays(days).atStartOfDay();
+    }
 }
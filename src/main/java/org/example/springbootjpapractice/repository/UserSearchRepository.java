@@ -0,0 +1,19 @@
+package org.example.springbootjpapractice.repository;
+
+import org.example.springbootjpapractice.dto.UserSearchRequest;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.util.List;
+
+public interface UserSearchRepository {
+
+    /**
+     * Runs the filters of {@code request} as one keyset-paginated query. Returns users, or maps
+     * of the given fields when {@code fields} is not empty.
+     */
+    Window<?> search(UserSearchRequest request, List<String> fields, Sort sort, KeysetScrollPosition position, int limit);
+
+    long countSearch(UserSearchRequest request);
+}
@@ -0,0 +1,257 @@
+package org.example.springbootjpapractice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import org.example.springbootjpapractice.dto.UserSearchRequest;
+import org.example.springbootjpapractice.entity.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Dynamic search over any combination of filters. The query text depends only on the shape of
+ * a request (which filters are present, the sort, whether there is a cursor and which fields
+ * are selected) and every value is a bind parameter. Texts are cached per shape, so repeated
+ * shapes skip query generation, and Hibernate's query plan cache, keyed by that text, skips
+ * parsing and SQL translation. Nullable sort columns order their nulls last in either direction,
+ * and a cursor whose key is null continues among the null rows.
+ */
+public class UserSearchRepositoryImpl implements UserSearchRepository {
+
+    private static final int MAX_CACHED_SHAPES = 1024;
+    private static final Set<String> NULLABLE_FIELDS = Set.of("age", "city", "createdAt", "updatedAt");
+
+    private final Map<String, String> queryCache = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Window<?> search(UserSearchRequest request, List<String> fields, Sort sort, KeysetScrollPosition position,
+                            int limit) {
+        boolean projected = fields != null && !fields.isEmpty();
+        Set<String> selected = new LinkedHashSet<>();
+        if (projected) {
+            for (String field : fields) {
+                if (!UserProjectionRepositoryImpl.PROJECTABLE_FIELDS.contains(field)) {
+                    throw new IllegalArgumentException("Unknown field: " + field);
+                }
+                selected.add(field);
+            }
+            sort.forEach(order -> selected.add(order.getProperty()));
+        }
+        List<Sort.Order> orders = sort.toList();
+        for (Sort.Order order : orders) {
+            if (!UserProjectionRepositoryImpl.PROJECTABLE_FIELDS.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Unknown sort property: " + order.getProperty());
+            }
+        }
+        boolean keyset = !position.isInitial();
+        Map<String, Object> cursorKeys = keyset ? position.getKeys() : Map.of();
+        StringBuilder keyShape = new StringBuilder(keyset ? "k" : "-");
+        if (keyset) {
+            orders.forEach(o -> keyShape.append(cursorKeys.get(o.getProperty()) == null ? '0' : '1'));
+        }
+
+        String shape = "S|" + filterShape(request) + "|" + orders + "|" + keyShape + "|" + (projected ? selected : "*");
+        String jpql = cachedQuery(shape, s -> {
+            StringBuilder query = new StringBuilder("SELECT ");
+            if (projected) {
+                query.append(String.join(", ", selected.stream().map(f -> "u." + f + " AS " + f).toList()));
+            } else {
+                query.append("u");
+            }
+            query.append(" FROM User u");
+            appendWhere(query, request, keyset ? keysetPredicate(orders, cursorKeys) : null);
+            query.append(" ORDER BY ");
+            query.append(String.join(", ", orders.stream()
+                    .map(o -> "u." + o.getProperty() + (o.isAscending() ? " ASC" : " DESC")
+                            + (NULLABLE_FIELDS.contains(o.getProperty()) ? " NULLS LAST" : "")).toList()));
+            return query.toString();
+        });
+
+        TypedQuery<?> query = projected
+                ? entityManager.createQuery(jpql, Tuple.class)
+                : entityManager.createQuery(jpql, User.class).setHint(HibernateHints.HINT_READ_ONLY, true);
+        bindFilters(query, request);
+        for (int i = 0; i < orders.size(); i++) {
+            Object key = cursorKeys.get(orders.get(i).getProperty());
+            if (key != null) {
+                query.setParameter("k" + i, key);
+            }
+        }
+        List<?> rows = query.setMaxResults(limit + 1).getResultList();
+
+        boolean hasNext = rows.size() > limit;
+        List<Object> content = new ArrayList<>(Math.min(rows.size(), limit));
+        List<Map<String, Object>> keys = new ArrayList<>(content.size());
+        for (Object row : rows.subList(0, Math.min(rows.size(), limit))) {
+            Map<String, Object> rowKeys = new LinkedHashMap<>();
+            if (row instanceof Tuple tuple) {
+                Map<String, Object> values = new LinkedHashMap<>();
+                for (String field : fields) {
+                    values.put(field, tuple.get(field));
+                }
+                orders.forEach(o -> rowKeys.put(o.getProperty(), tuple.get(o.getProperty())));
+                content.add(values);
+            } else {
+                BeanWrapperImpl user = new BeanWrapperImpl(row);
+                orders.forEach(o -> rowKeys.put(o.getProperty(), user.getPropertyValue(o.getProperty())));
+                content.add(row);
+            }
+            keys.add(rowKeys);
+        }
+        return Window.from(content, i -> ScrollPosition.forward(keys.get(i)), hasNext);
+    }
+
+    @Override
+    public long countSearch(UserSearchRequest request) {
+        String jpql = cachedQuery("C|" + filterShape(request), s -> {
+            StringBuilder query = new StringBuilder("SELECT COUNT(u) FROM User u");
+            appendWhere(query, request, null);
+            return query.toString();
+        });
+        TypedQuery<Long> query = entityManager.createQuery(jpql, Long.class);
+        bindFilters(query, request);
+        return query.getSingleResult();
+    }
+
+    private String cachedQuery(String shape, Function<String, String> generator) {
+        String cached = queryCache.get(shape);
+        if (cached != null) {
+            return cached;
+        }
+        String generated = generator.apply(shape);
+        if (queryCache.size() < MAX_CACHED_SHAPES) {
+            queryCache.putIfAbsent(shape, generated);
+        }
+        return generated;
+    }
+
+    private static String filterShape(UserSearchRequest r) {
+        StringBuilder shape = new StringBuilder();
+        shape.append(r.city() != null ? 'c' : '-');
+        shape.append(r.cities() != null && !r.cities().isEmpty() ? 'C' : '-');
+        shape.append(r.name() != null ? 'n' : '-');
+        shape.append(r.nameContains() != null ? 'N' : '-');
+        shape.append(r.minAge() != null ? 'a' : '-');
+        shape.append(r.maxAge() != null ? 'A' : '-');
+        shape.append(r.emailDomain() != null ? 'e' : '-');
+        shape.append(r.createdAfter() != null ? 't' : '-');
+        shape.append(r.createdBefore() != null ? 'T' : '-');
+        return shape.toString();
+    }
+
+    private static void appendWhere(StringBuilder query, UserSearchRequest r, String keysetPredicate) {
+        List<String> predicates = new ArrayList<>();
+        if (r.city() != null) {
+            predicates.add("u.city = :city");
+        }
+        if (r.cities() != null && !r.cities().isEmpty()) {
+            predicates.add("u.city IN :cities");
+        }
+        if (r.name() != null) {
+            predicates.add("u.name = :name");
+        }
+        if (r.nameContains() != null) {
+            predicates.add("u.nameLower LIKE :nameContains ESCAPE '\\'");
+        }
+        if (r.minAge() != null) {
+            predicates.add("u.age >= :minAge");
+        }
+        if (r.maxAge() != null) {
+            predicates.add("u.age <= :maxAge");
+        }
+        if (r.emailDomain() != null) {
+            predicates.add("u.emailReversed LIKE :emailDomain ESCAPE '\\'");
+        }
+        if (r.createdAfter() != null) {
+            predicates.add("u.createdAt >= :createdAfter");
+        }
+        if (r.createdBefore() != null) {
+            predicates.add("u.createdAt < :createdBefore");
+        }
+        if (keysetPredicate != null) {
+            predicates.add(keysetPredicate);
+        }
+        if (!predicates.isEmpty()) {
+            query.append(" WHERE ").append(String.join(" AND ", predicates));
+        }
+    }
+
+    /**
+     * {@code (a > :k0) OR (a = :k0 AND b > :k1) OR ...}, with {@code <} for descending columns.
+     * Nulls sort last, so on a nullable column a null row follows every non-null key, and a
+     * null key is only followed by rows tied on it ({@code IS NULL}) that come later on the next
+     * column.
+     */
+    private static String keysetPredicate(List<Sort.Order> orders, Map<String, Object> keys) {
+        List<String> alternatives = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Sort.Order order = orders.get(i);
+            String column = "u." + order.getProperty();
+            if (keys.get(order.getProperty()) == null) {
+                continue;
+            }
+            StringBuilder alternative = new StringBuilder("(");
+            for (int j = 0; j < i; j++) {
+                String tied = orders.get(j).getProperty();
+                alternative.append("u.").append(tied)
+                        .append(keys.get(tied) == null ? " IS NULL" : " = :k" + j).append(" AND ");
+            }
+            String after = column + (order.isAscending() ? " > :k" : " < :k") + i;
+            if (NULLABLE_FIELDS.contains(order.getProperty())) {
+                after = "(" + after + " OR " + column + " IS NULL)";
+            }
+            alternatives.add(alternative.append(after).append(')').toString());
+        }
+        return alternatives.isEmpty() ? "1 = 0" : "(" + String.join(" OR ", alternatives) + ")";
+    }
+
+    private static void bindFilters(TypedQuery<?> query, UserSearchRequest r) {
+        if (r.city() != null) {
+            query.setParameter("city", r.city());
+        }
+        if (r.cities() != null && !r.cities().isEmpty()) {
+            query.setParameter("cities", r.cities());
+        }
+        if (r.name() != null) {
+            query.setParameter("name", r.name());
+        }
+        if (r.nameContains() != null) {
+            query.setParameter("nameContains",
+                    "%" + UserSpecifications.escapeLike(r.nameContains().toLowerCase(Locale.ROOT)) + "%");
+        }
+        if (r.minAge() != null) {
+            query.setParameter("minAge", r.minAge());
+        }
+        if (r.maxAge() != null) {
+            query.setParameter("maxAge", r.maxAge());
+        }
+        if (r.emailDomain() != null) {
+            query.setParameter("emailDomain",
+                    UserSpecifications.escapeLike(new StringBuilder(r.emailDomain()).reverse().toString()) + "%");
+        }
+        if (r.createdAfter() != null) {
+            query.setParameter("createdAfter", r.createdAfter());
+        }
+        if (r.createdBefore() != null) {
+            query.setParameter("createdBefore", r.createdBefore());
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.springbootjpapractice.repository;
+
+import org.example.springbootjpapractice.entity.User;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Criteria equivalents of the {@link UserRepository} finder predicates, for queries that are
+ * assembled at runtime.
+ */
+public final class UserSpecifications {
+
+    // The escape character derived finders such as findByEmailReversedStartingWith use
+    private static final EscapeCharacter ESCAPE = EscapeCharacter.DEFAULT;
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * {@code value} with the LIKE wildcards and the escape character escaped, so it only matches
+     * itself inside a pattern declared with {@code ESCAPE '\\'}.
+     */
+    public static String escapeLike(String value) {
+        return ESCAPE.escape(value);
+    }
+
+    public static Specification<User> all() {
+        return (root, query, cb) -> cb.conjunction();
+    }
+
+    public static Specification<User> hasCity(String city) {
+        return (root, query, cb) -> cb.equal(root.get("city"), city);
+    }
+
+    public static Specification<User> ageBetween(Integer minAge, Integer maxAge) {
+        return (root, query, cb) -> cb.between(root.get("age"), minAge, maxAge);
+    }
+
+    public static Specification<User> olderThan(Integer age) {
+        return (root, query, cb) -> cb.greaterThan(root.get("age"), age);
+    }
+
+    public static Specification<User> nameContains(String name) {
+        String pattern = "%" + escapeLike(name.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(root.get("nameLower"), pattern, ESCAPE.getEscapeCharacter());
+    }
+
+    public static Specification<User> nameWordStartsWith(String prefix) {
+        String escaped = escapeLike(prefix.toLowerCase(Locale.ROOT));
+        return (root, query, cb) -> cb.or(
+                cb.like(root.get("nameLower"), escaped + "%", ESCAPE.getEscapeCharacter()),
+                cb.like(root.get("nameLower"), "% " + escaped + "%", ESCAPE.getEscapeCharacter()));
+    }
+
+    public static Specification<User> emailDomain(String domain) {
+        String pattern = escapeLike(new StringBuilder(domain).reverse().toString()) + "%";
+        return (root, query, cb) -> cb.like(root.get("emailReversed"), pattern, ESCAPE.getEscapeCharacter());
+    }
+
+    public static Specification<User> hasName(String name) {
+        return (root, query, cb) -> cb.equal(root.get("name"), name);
+    }
+
+    public static Specification<User> createdBefore(LocalDateTime instant) {
+        return (root, query, cb) -> cb.lessThan(root.get("createdAt"), instant);
+    }
+
+    /**
+     * Conjunction of the given filters, skipping null and blank ones. Returns null when no filter
+     * is left, so callers can tell "no filter" apart from "match everything".
+     */
+    public static Specification<User> matching(String city, String name, Integer minAge, Integer maxAge,
+                                               String emailDomain, LocalDateTime createdBefore) {
+        List<Specification<User>> filters = new ArrayList<>();
+        if (StringUtils.hasText(city)) {
+            filters.add(hasCity(city));
+        }
+        if (StringUtils.hasText(name)) {
+            filters.add(hasName(name));
+        }
+        if (minAge != null) {
+            filters.add((root, query, cb) -> cb.greaterThanOrEqualTo(root.get("age"), minAge));
+        }
+        if (maxAge != null) {
+            filters.add((root, query, cb) -> cb.lessThanOrEqualTo(root.get("age"), maxAge));
+        }
+        if (StringUtils.hasText(emailDomain)) {
+            filters.add(emailDomain(emailDomain));
+        }
+        if (createdBefore != null) {
+            filters.add(createdBefore(createdBefore));
+        }
+        return filters.isEmpty() ? null : Specification.allOf(filters);
+    }
+}
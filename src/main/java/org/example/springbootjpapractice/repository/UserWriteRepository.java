@@ -0,0 +1,49 @@
+package org.example.springbootjpapractice.repository;
+
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface UserWriteRepository {
+
+    /**
+     * Reads the column values of one user without creating a managed entity.
+     */
+    Optional<UserSnapshot> findSnapshotById(Long id);
+
+    /**
+     * Reads the column values of up to {@code limit} users matching {@code spec}, lowest id first,
+     * without creating managed entities.
+     */
+    List<UserSnapshot> findSnapshots(Specification<User> spec, int limit);
+
+    /**
+     * Like {@link #findSnapshots} but with {@code SELECT ... FOR UPDATE}, so no other transaction
+     * can change or delete the returned rows until this one ends.
+     */
+    List<UserSnapshot> lockSnapshots(Specification<User> spec, int limit);
+
+    /**
+     * Deletes the given users with one {@code DELETE ... WHERE id IN (...)} statement.
+     */
+    int deleteByIds(Collection<Long> ids);
+
+    /**
+     * Issues a single UPDATE of only the given columns for one user, guarded by its version.
+     * Derived search columns, {@code updatedAt} and {@code version} are maintained as well.
+     * Returns 0 if the user does not exist or its version is no longer {@code expectedVersion}.
+     */
+    int updateColumns(Long id, long expectedVersion, Map<String, Object> changes, LocalDateTime now);
+
+    /**
+     * Applies the same column changes to every user matching {@code spec} in one UPDATE
+     * statement and returns the number of rows changed.
+     */
+    int updateColumns(Specification<User> spec, Map<String, Object> changes, LocalDateTime now);
+}
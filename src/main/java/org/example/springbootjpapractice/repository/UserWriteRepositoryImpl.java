@@ -0,0 +1,114 @@
+package org.example.springbootjpapractice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+public class UserWriteRepositoryImpl implements UserWriteRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<UserSnapshot> findSnapshotById(Long id) {
+        List<UserSnapshot> rows = findSnapshots((root, query, cb) -> cb.equal(root.get("id"), id), 1);
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    @Override
+    public List<UserSnapshot> findSnapshots(Specification<User> spec, int limit) {
+        return snapshots(spec, limit, LockModeType.NONE);
+    }
+
+    @Override
+    public List<UserSnapshot> lockSnapshots(Specification<User> spec, int limit) {
+        return snapshots(spec, limit, LockModeType.PESSIMISTIC_WRITE);
+    }
+
+    private List<UserSnapshot> snapshots(Specification<User> spec, int limit, LockModeType lockMode) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> root = query.from(User.class);
+        query.multiselect(root.get("id"), root.get("name"), root.get("email"), root.get("age"), root.get("city"),
+                root.get("createdAt"), root.get("updatedAt"), root.get("version"));
+        query.where(spec.toPredicate(root, query, cb));
+        query.orderBy(cb.asc(root.get("id")));
+        List<Tuple> rows = entityManager.createQuery(query).setMaxResults(limit).setLockMode(lockMode).getResultList();
+        List<UserSnapshot> snapshots = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            snapshots.add(new UserSnapshot(
+                    row.get(0, Long.class),
+                    row.get(1, String.class),
+                    row.get(2, String.class),
+                    row.get(3, Integer.class),
+                    row.get(4, String.class),
+                    row.get(5, LocalDateTime.class),
+                    row.get(6, LocalDateTime.class),
+                    row.get(7, Long.class)));
+        }
+        return snapshots;
+    }
+
+    @Override
+    public int deleteByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return entityManager.createQuery("DELETE FROM User u WHERE u.id IN :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    @Override
+    public int updateColumns(Long id, long expectedVersion, Map<String, Object> changes, LocalDateTime now) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = cb.createCriteriaUpdate(User.class);
+        Root<User> root = update.from(User.class);
+        set(update, root, cb, changes, now);
+        update.where(cb.equal(root.get("id"), id), cb.equal(root.get("version"), expectedVersion));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    @Override
+    public int updateColumns(Specification<User> spec, Map<String, Object> changes, LocalDateTime now) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<User> update = cb.createCriteriaUpdate(User.class);
+        Root<User> root = update.from(User.class);
+        set(update, root, cb, changes, now);
+        update.where(spec.toPredicate(root, cb.createQuery(User.class), cb));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private static void set(CriteriaUpdate<User> update, Root<User> root, CriteriaBuilder cb,
+                            Map<String, Object> changes, LocalDateTime now) {
+        changes.forEach((field, value) -> update.set(root.get(field), value));
+        if (changes.containsKey("name")) {
+            String name = (String) changes.get("name");
+            update.set(root.get("nameLower"), name.toLowerCase(Locale.ROOT));
+        }
+        if (changes.containsKey("email")) {
+            String email = (String) changes.get("email");
+            update.set(root.get("emailReversed"), new StringBuilder(email).reverse().toString());
+        }
+        update.set(root.get("updatedAt"), now);
+        Path<Long> version = root.get("version");
+        update.set(version, cb.sum(version, 1L));
+    }
+}
@@ -0,0 +1,203 @@
+package org.example.springbootjpapractice.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Inverted n-gram index from ids to short texts, answering case-insensitive "contains" and
+ * "word starts with" queries. Every trigram of the lower-cased text is indexed, plus one- and
+ * two-character word prefixes. Candidates come from the smallest posting list of the
+ * query's grams and are verified against the stored text, so postings may keep stale ids after
+ * an update or removal. Those are counted and dropped at the next rebuild.
+ * Contains-queries shorter than three characters have no grams and fall back to a scan.
+ */
+public class TrigramIndex {
+
+    public enum Match {
+        CONTAINS,
+        PREFIX
+    }
+
+    public enum Order {
+        TEXT,
+        RELEVANCE
+    }
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Posting> postings = new ConcurrentHashMap<>();
+    private final AtomicLong livePostings = new AtomicLong();
+    private final AtomicLong stalePostings = new AtomicLong();
+
+    public void put(long id, String text) {
+        Entry entry = new Entry(id, text, text.toLowerCase(Locale.ROOT));
+        Entry previous = entries.put(id, entry);
+        Set<String> grams = grams(entry.lower());
+        if (previous != null) {
+            Set<String> previousGrams = grams(previous.lower());
+            stalePostings.addAndGet(previousGrams.stream().filter(g -> !grams.contains(g)).count());
+            grams.removeAll(previousGrams);
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, g -> new Posting()).add(id);
+        }
+        livePostings.addAndGet(grams.size());
+    }
+
+    public void remove(long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            stalePostings.addAndGet(grams(previous.lower()).size());
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Share of posting entries that point at removed or renamed texts.
+     */
+    public double staleRatio() {
+        long live = livePostings.get();
+        return live == 0 ? 0 : (double) stalePostings.get() / live;
+    }
+
+    public List<Long> search(String query, Match match, Order order, boolean descending) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        List<Entry> hits = matches(q, match);
+        Comparator<Entry> comparator = order == Order.RELEVANCE
+                ? Comparator.<Entry>comparingInt(e -> rank(e.lower(), q))
+                        .thenComparingInt(e -> e.text().length())
+                        .thenComparing(Entry::text)
+                : Comparator.comparing(Entry::text);
+        comparator = comparator.thenComparingLong(Entry::id);
+        hits.sort(descending ? comparator.reversed() : comparator);
+        List<Long> ids = new ArrayList<>(hits.size());
+        for (Entry hit : hits) {
+            ids.add(hit.id());
+        }
+        return ids;
+    }
+
+    public int count(String query, Match match) {
+        return matches(query.trim().toLowerCase(Locale.ROOT), match).size();
+    }
+
+    private List<Entry> matches(String q, Match match) {
+        List<Entry> hits = new ArrayList<>();
+        Posting smallest = null;
+        boolean scan = true;
+        for (String gram : queryGrams(q, match)) {
+            scan = false;
+            Posting posting = postings.get(gram);
+            if (posting == null) {
+                return hits;
+            }
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        if (scan) {
+            for (Entry entry : entries.values()) {
+                if (matches(entry.lower(), q, match)) {
+                    hits.add(entry);
+                }
+            }
+            return hits;
+        }
+        Set<Long> seen = new HashSet<>();
+        long[] ids = smallest.snapshot();
+        int size = smallest.size(ids);
+        for (int i = 0; i < size; i++) {
+            Entry entry = entries.get(ids[i]);
+            if (entry != null && matches(entry.lower(), q, match) && seen.add(entry.id())) {
+                hits.add(entry);
+            }
+        }
+        return hits;
+    }
+
+    private static boolean matches(String lower, String q, Match match) {
+        return match == Match.CONTAINS ? lower.contains(q) : lower.startsWith(q) || lower.contains(" " + q);
+    }
+
+    private static int rank(String lower, String q) {
+        if (lower.equals(q)) {
+            return 0;
+        }
+        if (lower.startsWith(q)) {
+            return 1;
+        }
+        if (lower.contains(" " + q)) {
+            return 2;
+        }
+        return 3;
+    }
+
+    private static Set<String> grams(String lower) {
+        Set<String> grams = new LinkedHashSet<>();
+        String padded = " " + lower;
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        for (int i = 0; i < lower.length(); i++) {
+            if (i == 0 || lower.charAt(i - 1) == ' ') {
+                grams.add(" " + lower.charAt(i));
+            }
+        }
+        return grams;
+    }
+
+    private static List<String> queryGrams(String q, Match match) {
+        String text = match == Match.PREFIX ? " " + q : q;
+        if (text.length() == 2 && match == Match.PREFIX) {
+            return List.of(text);
+        }
+        List<String> grams = new ArrayList<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            grams.add(text.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private record Entry(long id, String text, String lower) {
+    }
+
+    /**
+     * Append-only list of ids. Readers take the array and size under the lock and iterate
+     * outside it; growth replaces the array, so a taken snapshot is never modified.
+     */
+    private static final class Posting {
+
+        private long[] ids = new long[4];
+        private int size;
+
+        synchronized void add(long id) {
+            if (size == ids.length) {
+                long[] grown = new long[size * 2];
+                System.arraycopy(ids, 0, grown, 0, size);
+                ids = grown;
+            }
+            ids[size++] = id;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long[] snapshot() {
+            return ids;
+        }
+
+        synchronized int size(long[] snapshot) {
+            return snapshot == ids ? size : snapshot.length;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.springbootjpapractice.search;
+
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link TrigramIndex} over {@code User.name}. Built from the table at startup and kept in sync
+ * from committed {@link UserChangedEvent}s. Set-based changes, or too many stale postings,
+ * trigger a background rebuild while the old index keeps serving. A rebuild requested while one
+ * is running is not dropped: the running one goes round again once it finishes.
+ */
+@Component
+public class UserNameIndex {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${app.search.name.max-stale-ratio:0.5}")
+    private double maxStaleRatio;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private volatile TrigramIndex index;
+    private volatile Queue<Consumer<TrigramIndex>> changesDuringRebuild;
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * Ids of all users whose name matches, in the requested order, or null if the index has not
+     * been built yet.
+     */
+    public List<Long> search(String query, TrigramIndex.Match match, TrigramIndex.Order order, boolean descending) {
+        TrigramIndex current = index;
+        return current == null ? null : current.search(query, match, order, descending);
+    }
+
+    public int count(String query, TrigramIndex.Match match) {
+        TrigramIndex current = index;
+        return current == null ? -1 : current.count(query, match);
+    }
+
+    public int size() {
+        TrigramIndex current = index;
+        return current == null ? 0 : current.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildRequested.set(true);
+        // Whoever holds the flag rebuilds until no request arrived during its last pass
+        while (rebuildRequested.get() && rebuilding.compareAndSet(false, true)) {
+            try {
+                rebuildRequested.set(false);
+                rebuildOnce();
+            } finally {
+                changesDuringRebuild = null;
+                rebuilding.set(false);
+            }
+        }
+    }
+
+    private void rebuildOnce() {
+        changesDuringRebuild = new ConcurrentLinkedQueue<>();
+        TrigramIndex rebuilt = new TrigramIndex();
+        // Not read-only, so with replicas configured the index is still built from the primary
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = userRepository.streamAllIdsAndNames()) {
+                rows.forEach(row -> rebuilt.put((Long) row[0], (String) row[1]));
+            }
+        });
+        index = rebuilt;
+        Queue<Consumer<TrigramIndex>> pending = changesDuringRebuild;
+        changesDuringRebuild = null;
+        pending.forEach(change -> change.accept(rebuilt));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.after() == null) {
+            long id = event.id();
+            apply(index -> index.remove(id));
+        } else if (event.before() == null || !event.after().name().equals(event.before().name())) {
+            long id = event.id();
+            String name = event.after().name();
+            apply(index -> index.put(id, name));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        taskExecutor.execute(this::rebuild);
+    }
+
+    private void apply(Consumer<TrigramIndex> change) {
+        Queue<Consumer<TrigramIndex>> pending = changesDuringRebuild;
+        if (pending != null) {
+            pending.add(change);
+        }
+        TrigramIndex current = index;
+        if (current != null) {
+            change.accept(current);
+            if (current.staleRatio() > maxStaleRatio && !rebuilding.get()) {
+                taskExecutor.execute(this::rebuild);
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.springbootjpapractice.seed;
+
+import org.example.springbootjpapractice.dto.SnapshotInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Whole-database snapshots of the file-backed H2 database. {@link #create()} runs H2's online
+ * {@code BACKUP}, which zips the database file, indexes included, from a consistent view while
+ * the application keeps running. {@link #restore} unzips such a file over the data directory and
+ * must run before anything has opened the database.
+ */
+public class DatabaseSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseSnapshot.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path path;
+
+    public DatabaseSnapshot(JdbcTemplate jdbcTemplate, Path path) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.path = path.toAbsolutePath().normalize();
+    }
+
+    public SnapshotInfo create() {
+        // Back up next to the target and swap it in, so a failed backup keeps the previous snapshot
+        Path partial = path.resolveSibling(path.getFileName() + ".partial");
+        try {
+            Files.createDirectories(path.getParent());
+            jdbcTemplate.execute("BACKUP TO '" + partial.toString().replace("'", "''") + "'");
+            Files.move(partial, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write snapshot " + path, e);
+        }
+        SnapshotInfo info = info();
+        log.info("Wrote snapshot {} ({} bytes)", info.path(), info.sizeBytes());
+        return info;
+    }
+
+    /**
+     * Describes the current snapshot file, or returns null if none has been written yet.
+     */
+    public SnapshotInfo info() {
+        try {
+            if (!Files.exists(path)) {
+                return null;
+            }
+            return new SnapshotInfo(path.toString(), Files.size(path), Files.getLastModifiedTime(path).toInstant());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void restore(Path snapshot, Path dataDir) throws IOException {
+        if (!Files.isRegularFile(snapshot)) {
+            throw new IllegalStateException("No snapshot to restore at " + snapshot.toAbsolutePath());
+        }
+        Path directory = dataDir.toAbsolutePath().normalize();
+        Files.createDirectories(directory);
+
+        long started = System.nanoTime();
+        try (ZipInputStream zip = new ZipInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+                Path target = directory.resolve(entry.getName()).normalize();
+                if (!target.startsWith(directory)) {
+                    throw new IllegalStateException("Snapshot entry outside the data directory: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.createDirectories(target.getParent());
+                    Files.copy(zip, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+        log.info("Restored {} into {} in {} ms", snapshot, directory, (System.nanoTime() - started) / 1_000_000);
+    }
+}
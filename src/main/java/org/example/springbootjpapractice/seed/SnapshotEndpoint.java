@@ -0,0 +1,30 @@
+package org.example.springbootjpapractice.seed;
+
+import org.example.springbootjpapractice.dto.SnapshotInfo;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+
+/**
+ * {@code GET /actuator/snapshot} describes the current snapshot (404 if there is none);
+ * {@code POST /actuator/snapshot} writes a new one.
+ */
+@Endpoint(id = "snapshot")
+public class SnapshotEndpoint {
+
+    private final DatabaseSnapshot databaseSnapshot;
+
+    public SnapshotEndpoint(DatabaseSnapshot databaseSnapshot) {
+        this.databaseSnapshot = databaseSnapshot;
+    }
+
+    @ReadOperation
+    public SnapshotInfo snapshot() {
+        return databaseSnapshot.info();
+    }
+
+    @WriteOperation
+    public SnapshotInfo create() {
+        return databaseSnapshot.create();
+    }
+}
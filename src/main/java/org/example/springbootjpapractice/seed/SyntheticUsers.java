@@ -0,0 +1,118 @@
+package org.example.springbootjpapractice.seed;
+
+import org.example.springbootjpapractice.entity.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic synthetic users. Row {@code n} depends only on the seed and {@code n}, so any
+ * slice can be generated on any thread and the same seed always yields the same table.
+ * Cities follow a Zipf distribution, ages a log-normal one from 18 up, and email domains a few
+ * large providers plus a long tail. Creation dates fall in the three years before {@code today},
+ * and no update is later than its start.
+ */
+public class SyntheticUsers {
+
+    private static final String[] CITIES = {
+            "New York", "Los Angeles", "Chicago", "Houston", "Phoenix", "Philadelphia", "San Antonio",
+            "San Diego", "Dallas", "Austin", "Jacksonville", "San Jose", "Fort Worth", "Columbus",
+            "Charlotte", "Indianapolis", "San Francisco", "Seattle", "Denver", "Nashville", "Oklahoma City",
+            "Washington", "El Paso", "Las Vegas", "Boston", "Detroit", "Portland", "Louisville", "Memphis",
+            "Baltimore", "Milwaukee", "Albuquerque", "Tucson", "Fresno", "Sacramento", "Mesa", "Atlanta",
+            "Kansas City", "Omaha", "Miami"
+    };
+
+    private static final String[] DOMAINS = {
+            "gmail.com", "yahoo.com", "outlook.com", "hotmail.com", "icloud.com", "example.com",
+            "test.com", "demo.com", "mail.org", "proton.me", "acme.io", "globex.net"
+    };
+    private static final double[] DOMAIN_WEIGHTS = {40, 14, 12, 8, 7, 5, 4, 3, 3, 2, 1, 1};
+
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David",
+            "Elizabeth", "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah",
+            "Charles", "Karen", "Daniel", "Lisa", "Matthew", "Nancy", "Anthony", "Sandra", "Mark", "Ashley",
+            "Wei", "Priya", "Carlos", "Fatima", "Hiroshi", "Olga", "Mateo", "Aisha", "Lucas", "Ingrid"
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez",
+            "Martinez", "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore",
+            "Jackson", "Martin", "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Lewis",
+            "Nguyen", "Patel", "Kim", "Chen", "Kowalski", "Novak", "Silva", "Okafor", "Larsen", "Tanaka"
+    };
+
+    private static final int HISTORY_DAYS = 3 * 365;
+
+    private static final double[] CITY_CDF = cumulative(zipfWeights(CITIES.length, 1.1));
+    private static final double[] DOMAIN_CDF = cumulative(DOMAIN_WEIGHTS);
+
+    private final long seed;
+    private final LocalDateTime today;
+
+    public SyntheticUsers(long seed, LocalDate today) {
+        this.seed = seed;
+        this.today = today.atStartOfDay();
+    }
+
+    public User user(long n) {
+        SplittableRandom random = new SplittableRandom(mix(seed ^ mix(n)));
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String domain = DOMAINS[pick(DOMAIN_CDF, random.nextDouble())];
+        // A few percent of rows leave the optional columns empty, like real sign-ups do
+        String city = random.nextInt(100) == 0 ? null : CITIES[pick(CITY_CDF, random.nextDouble())];
+        Integer age = random.nextInt(50) == 0 ? null : age(random);
+
+        User user = new User(first + " " + last, email(first, last, n, domain), age, city);
+        LocalDateTime createdAt = today.minusDays(1 + random.nextInt(HISTORY_DAYS)).plusSeconds(random.nextInt(86_400));
+        user.setCreatedAt(createdAt);
+        LocalDateTime updatedAt = random.nextInt(4) == 0 ? createdAt.plusDays(random.nextInt(90)) : createdAt;
+        user.setUpdatedAt(updatedAt.isAfter(today) ? today : updatedAt);
+        return user;
+    }
+
+    private static String email(String first, String last, long n, String domain) {
+        return (first + "." + last + n).toLowerCase(Locale.ROOT) + "@" + domain;
+    }
+
+    private static int age(SplittableRandom random) {
+        // Log-normal around a median of ~34, capped at 95
+        double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+        return (int) Math.min(95, 18 + Math.exp(2.8 + 0.6 * gaussian));
+    }
+
+    private static int pick(double[] cdf, double u) {
+        int index = Arrays.binarySearch(cdf, u);
+        return Math.min(cdf.length - 1, index >= 0 ? index : -index - 1);
+    }
+
+    private static double[] zipfWeights(int n, double exponent) {
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = 1 / Math.pow(i + 1, exponent);
+        }
+        return weights;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double total = Arrays.stream(weights).sum();
+        double[] cdf = new double[weights.length];
+        double running = 0;
+        for (int i = 0; i < weights.length; i++) {
+            running += weights[i] / total;
+            cdf[i] = running;
+        }
+        return cdf;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.springbootjpapractice.seed;
+
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Fills the users table with {@link SyntheticUsers}: chunks of {@code app.seed.batch-size} rows,
+ * each one JDBC batch in its own transaction, on {@code app.seed.threads} threads. Rows bypass
+ * JPA, so ids are assigned here from a block reserved past the sequence, and the derived search
+ * columns are written directly. Timestamps count back from {@code app.seed.anchor-date}, or from
+ * today on the application {@link Clock} when it is not set.
+ */
+@Component
+public class UserSeeder {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSeeder.class);
+
+    private static final String INSERT = "INSERT INTO users "
+            + "(id, name, email, age, city, created_at, updated_at, version, name_lower, email_reversed) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, 0, ?, ?)";
+
+    // Must match the allocationSize of the users_seq generator on User
+    private static final int SEQUENCE_ALLOCATION = 50;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${app.seed.random-seed:42}")
+    private long randomSeed;
+
+    @Value("${app.seed.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${app.seed.threads:4}")
+    private int threads;
+
+    @Value("${app.seed.anchor-date:}")
+    private String anchorDate;
+
+    @Autowired
+    private Clock clock;
+
+    /**
+     * Inserts {@code count} synthetic users and returns the first id used; the rest follow
+     * consecutively.
+     */
+    public long seed(long count) throws InterruptedException {
+        SyntheticUsers users = new SyntheticUsers(randomSeed, anchorDate());
+        long firstId = reserveIds(count);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long started = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> chunks = new ArrayList<>();
+            for (long from = 0; from < count; from += batchSize) {
+                long start = from;
+                long end = Math.min(count, from + batchSize);
+                chunks.add(executor.submit(() -> transaction.executeWithoutResult(
+                        status -> insert(users, firstId, start, end))));
+            }
+            for (Future<?> chunk : chunks) {
+                chunk.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Seeding failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("Seeded {} users in {} s ({} rows/s, seed {})", count, String.format("%.1f", seconds),
+                Math.round(count / seconds), randomSeed);
+        eventPublisher.publishEvent(UsersBulkChangedEvent.unknown());
+        return firstId;
+    }
+
+    private void insert(SyntheticUsers users, long firstId, long start, long end) {
+        List<Object[]> rows = new ArrayList<>((int) (end - start));
+        for (long n = start; n < end; n++) {
+            User user = users.user(n);
+            rows.add(new Object[]{
+                    firstId + n, user.getName(), user.getEmail(), user.getAge(), user.getCity(),
+                    Timestamp.valueOf(user.getCreatedAt()), Timestamp.valueOf(user.getUpdatedAt()),
+                    user.getName().toLowerCase(Locale.ROOT), new StringBuilder(user.getEmail()).reverse().toString()
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows, new int[]{
+                Types.BIGINT, Types.VARCHAR, Types.VARCHAR, Types.INTEGER, Types.VARCHAR,
+                Types.TIMESTAMP, Types.TIMESTAMP, Types.VARCHAR, Types.VARCHAR
+        });
+    }
+
+    private LocalDate anchorDate() {
+        return StringUtils.hasText(anchorDate) ? LocalDate.parse(anchorDate.trim()) : LocalDate.now(clock);
+    }
+
+    /**
+     * Picks ids above both the table and the sequence, then moves the sequence past them so
+     * Hibernate's next pooled block starts after the seeded range.
+     */
+    private long reserveIds(long count) {
+        Long next = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR users_seq", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM users", Long.class);
+        long firstId = Math.max(next, maxId) + 1;
+        jdbcTemplate.execute("ALTER SEQUENCE users_seq RESTART WITH " + (firstId + count + SEQUENCE_ALLOCATION));
+        return firstId;
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.springbootjpapractice.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Merges concurrent loads of single keys into one batch load, dataloader style. The caller that
+ * opens a batch waits up to {@code window} for other keys to join it and then loads the batch on
+ * its own thread; a caller that fills a batch to {@code maxBatchSize} loads it straight away.
+ * A key that is already waiting or loading is not queued again, its callers share the result.
+ */
+final class BatchLoader<K, V> {
+
+    private final Function<List<K>, Map<K, V>> loadBatch;
+    private final int maxBatchSize;
+    private final long windowNanos;
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private Batch<K, V> pending;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder keys = new LongAdder();
+    private final LongAdder shared = new LongAdder();
+
+    BatchLoader(Function<List<K>, Map<K, V>> loadBatch, int maxBatchSize, Duration window) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive");
+        }
+        this.loadBatch = loadBatch;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+    }
+
+    /**
+     * The value for {@code key}, or null if the batch load did not return one.
+     */
+    V load(K key) {
+        return loadAll(List.of(key)).get(key);
+    }
+
+    /**
+     * Values of the given keys that the batch loads returned, in the order of {@code requested}.
+     */
+    Map<K, V> loadAll(Collection<K> requested) {
+        Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+        List<Batch<K, V>> opened = new ArrayList<>();
+        List<Batch<K, V>> filled = new ArrayList<>();
+        synchronized (this) {
+            for (K key : requested) {
+                if (futures.containsKey(key)) {
+                    continue;
+                }
+                CompletableFuture<V> future = inFlight.get(key);
+                if (future != null) {
+                    shared.increment();
+                    futures.put(key, future);
+                    continue;
+                }
+                future = new CompletableFuture<>();
+                inFlight.put(key, future);
+                futures.put(key, future);
+                if (pending == null) {
+                    pending = new Batch<>();
+                    opened.add(pending);
+                }
+                pending.add(key, future);
+                if (pending.size() >= maxBatchSize) {
+                    filled.add(pending);
+                    pending = null;
+                }
+            }
+        }
+
+        filled.forEach(this::run);
+        for (Batch<K, V> batch : opened) {
+            if (!filled.contains(batch) && awaitWindow(batch)) {
+                run(batch);
+            }
+        }
+
+        Map<K, V> values = new LinkedHashMap<>();
+        for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+            V value = await(entry.getValue());
+            if (value != null) {
+                values.put(entry.getKey(), value);
+            }
+        }
+        return values;
+    }
+
+    long getBatchCount() {
+        return batches.sum();
+    }
+
+    long getKeyCount() {
+        return keys.sum();
+    }
+
+    long getSharedCount() {
+        return shared.sum();
+    }
+
+    /**
+     * Waits out the window, then takes the batch unless a caller that filled it already did.
+     */
+    private boolean awaitWindow(Batch<K, V> batch) {
+        long deadline = System.nanoTime() + windowNanos;
+        for (long remaining = windowNanos; remaining > 0 && !Thread.currentThread().isInterrupted();
+             remaining = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(remaining);
+        }
+        synchronized (this) {
+            if (pending != batch) {
+                return false;
+            }
+            pending = null;
+            return true;
+        }
+    }
+
+    private void run(Batch<K, V> batch) {
+        batches.increment();
+        keys.add(batch.size());
+        try {
+            Map<K, V> values = loadBatch.apply(batch.keys);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.futures.get(i).complete(values.get(batch.keys.get(i)));
+            }
+        } catch (RuntimeException | Error e) {
+            // Rethrown to every caller of the batch by await
+            batch.futures.forEach(future -> future.completeExceptionally(e));
+        } finally {
+            for (int i = 0; i < batch.size(); i++) {
+                inFlight.remove(batch.keys.get(i), batch.futures.get(i));
+            }
+        }
+    }
+
+    private static <V> V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static final class Batch<K, V> {
+
+        private final List<K> keys = new ArrayList<>();
+        private final List<CompletableFuture<V>> futures = new ArrayList<>();
+
+        void add(K key, CompletableFuture<V> future) {
+            keys.add(key);
+            futures.add(future);
+        }
+
+        int size() {
+            return keys.size();
+        }
+    }
+}
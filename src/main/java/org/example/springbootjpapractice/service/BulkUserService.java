@@ -0,0 +1,226 @@
+package org.example.springbootjpapractice.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.springbootjpapractice.dto.BulkInsertResult;
+import org.example.springbootjpapractice.dto.BulkInsertResult.RowResult;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class BulkUserService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.users.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.users.bulk.max-reported-rejections:1000}")
+    private int maxReportedRejections;
+
+    /**
+     * Reads a JSON array or newline-delimited JSON objects one row at a time and
+     * writes them in batches of {@code app.users.bulk.batch-size}, one transaction per batch.
+     * Only counts and the first {@code app.users.bulk.max-reported-rejections} rejected rows
+     * are kept, so memory does not grow with the size of the upload.
+     */
+    public BulkInsertResult ingest(InputStream body) throws IOException {
+        Tally tally = new Tally(maxReportedRejections);
+        List<BulkRow> batch = new ArrayList<>(batchSize);
+        int index = 0;
+
+        try (MappingIterator<JsonNode> rows = objectMapper.readerFor(JsonNode.class).readValues(body)) {
+            while (rows.hasNextValue()) {
+                JsonNode node = rows.nextValue();
+                int rowIndex = index++;
+                try {
+                    batch.add(new BulkRow(rowIndex, toUser(node)));
+                } catch (IllegalArgumentException e) {
+                    tally.add(RowResult.rejected(rowIndex, node.path("email").textValue(), e.getMessage()));
+                }
+                if (batch.size() >= batchSize) {
+                    writeBatch(batch).forEach(tally::add);
+                    batch.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            tally.add(RowResult.rejected(index++, null, "Malformed input, stopped reading: " + e.getOriginalMessage()));
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch).forEach(tally::add);
+        }
+
+        tally.rejectedRows.sort(Comparator.comparingInt(RowResult::index));
+        return new BulkInsertResult(index, tally.accepted, tally.rejected, tally.rejectedRows,
+                tally.rejected > tally.rejectedRows.size());
+    }
+
+    /**
+     * Inserts the rows in a single transaction using JDBC batching. Rows whose email is
+     * already taken are rejected up front; if the batch still fails it is retried row by row.
+     */
+    public List<RowResult> writeBatch(List<BulkRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        List<RowResult> results = new ArrayList<>(rows.size());
+        List<BulkRow> candidates = new ArrayList<>(rows.size());
+        Set<String> batchEmails = new HashSet<>();
+        for (BulkRow row : rows) {
+            if (batchEmails.add(row.user().getEmail())) {
+                candidates.add(row);
+            } else {
+                results.add(RowResult.rejected(row.index(), row.user().getEmail(), "Duplicate email in request"));
+            }
+        }
+
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(batchEmails));
+        candidates.removeIf(row -> {
+            if (existing.contains(row.user().getEmail())) {
+                results.add(RowResult.rejected(row.index(), row.user().getEmail(), "Email already exists"));
+                return true;
+            }
+            return false;
+        });
+
+        try {
+            results.addAll(persist(candidates));
+        } catch (RuntimeException e) {
+            for (BulkRow row : candidates) {
+                try {
+                    results.addAll(persist(List.of(row)));
+                } catch (RuntimeException rowFailure) {
+                    results.add(RowResult.rejected(row.index(), row.user().getEmail(), rootMessage(rowFailure)));
+                }
+            }
+        }
+        return results;
+    }
+
+    private List<RowResult> persist(List<BulkRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            List<RowResult> accepted = new ArrayList<>(rows.size());
+            for (BulkRow row : rows) {
+                // Fresh instance so a row retried after a rolled-back batch never carries a stale id
+                User user = new User(row.user().getName(), row.user().getEmail(),
+                        row.user().getAge(), row.user().getCity());
+                entityManager.persist(user);
+                accepted.add(RowResult.accepted(row.index(), user.getId(), user.getEmail()));
+            }
+            entityManager.flush();
+            entityManager.clear();
+            return accepted;
+        });
+    }
+
+    private User toUser(JsonNode node) {
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Row must be a JSON object");
+        }
+        Integer age = null;
+        JsonNode ageNode = node.path("age");
+        if (!ageNode.isMissingNode() && !ageNode.isNull()) {
+            if (!ageNode.isIntegralNumber() || !ageNode.canConvertToInt()) {
+                throw new IllegalArgumentException("Invalid age: " + ageNode);
+            }
+            age = ageNode.intValue();
+        }
+        User user = new User(node.path("name").textValue(), node.path("email").textValue(), age,
+                node.path("city").textValue());
+        validate(user);
+        return user;
+    }
+
+    /**
+     * Checks a new user against the column constraints, so a bad row is rejected on its own
+     * instead of failing the batch it is written in.
+     */
+    static void validate(User user) {
+        requireText("name", user.getName(), 100);
+        requireText("email", user.getEmail(), 150);
+        if (user.getEmail().indexOf('@') < 1) {
+            throw new IllegalArgumentException("Invalid email: " + user.getEmail());
+        }
+        if (user.getAge() != null && user.getAge() < 0) {
+            throw new IllegalArgumentException("Invalid age: " + user.getAge());
+        }
+        if (user.getCity() != null && user.getCity().length() > 100) {
+            throw new IllegalArgumentException("city must be at most 100 characters");
+        }
+    }
+
+    private static void requireText(String field, String value, int maxLength) {
+        if (value == null || value.isBlank()) {
+            throw new IllegalArgumentException(field + " is required");
+        }
+        if (value.length() > maxLength) {
+            throw new IllegalArgumentException(field + " must be at most " + maxLength + " characters");
+        }
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage();
+    }
+
+    public record BulkRow(int index, User user) {
+    }
+
+    private static final class Tally {
+
+        private final int maxReported;
+        private final List<RowResult> rejectedRows = new ArrayList<>();
+        private int accepted;
+        private int rejected;
+
+        Tally(int maxReported) {
+            this.maxReported = maxReported;
+        }
+
+        void add(RowResult result) {
+            if (result.status() == BulkInsertResult.Status.ACCEPTED) {
+                accepted++;
+                return;
+            }
+            rejected++;
+            if (rejectedRows.size() < maxReported) {
+                rejectedRows.add(result);
+            }
+        }
+    }
+}
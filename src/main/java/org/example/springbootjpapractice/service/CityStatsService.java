@@ -0,0 +1,198 @@
+package org.example.springbootjpapractice.service;
+
+import org.example.springbootjpapractice.dto.CityStats;
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-city user count and age statistics kept in memory. Committed {@link UserChangedEvent}s
+ * are applied incrementally, and the whole aggregate is periodically rebuilt from a
+ * {@code GROUP BY} on the primary to correct any drift from writes that bypass entity events.
+ * Changes whose effect is unknown, such as bulk writes, mark the aggregate dirty and the next
+ * {@code dirty-check-interval} tick rebuilds it, off the committing thread.
+ */
+@Service
+public class CityStatsService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Guards swapping the aggregate against changes being applied to it
+    private final Object swapLock = new Object();
+    private volatile ConcurrentHashMap<String, CityAggregate> cities = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+
+    public long countByCity(String city) {
+        CityAggregate aggregate = cities.get(city);
+        return aggregate == null ? 0 : aggregate.count();
+    }
+
+    public CityStats getStats(String city) {
+        CityAggregate aggregate = cities.get(city);
+        return aggregate == null ? new CityStats(city, 0, null, null, null) : aggregate.toStats(city);
+    }
+
+    public List<CityStats> getAllStats() {
+        return cities.entrySet().stream()
+                .map(e -> e.getValue().toStats(e.getKey()))
+                .filter(stats -> stats.count() > 0)
+                .sorted(Comparator.comparing(CityStats::city))
+                .toList();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        UserSnapshot before = event.before();
+        UserSnapshot after = event.after();
+        if (event.type() == UserChangedEvent.Type.UPDATED && before == null) {
+            dirty = true;
+            return;
+        }
+        if (before != null && after != null
+                && Objects.equals(before.city(), after.city()) && Objects.equals(before.age(), after.age())) {
+            return;
+        }
+        synchronized (swapLock) {
+            new Change(before, after).applyTo(cities);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsersBulkChanged(UsersBulkChangedEvent event) {
+        dirty = true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.stats.city.reconcile-interval:5m}",
+            initialDelayString = "${app.stats.city.reconcile-interval:5m}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.city.dirty-check-interval:1s}")
+    public void reconcileIfDirty() {
+        if (dirty) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Rebuilds every aggregate from the table and returns how many cities had drifted.
+     * Changes committing meanwhile wait for the swap and then apply to the rebuilt aggregate,
+     * so none is counted both by the {@code GROUP BY} and on top of it.
+     */
+    public synchronized int reconcile() {
+        dirty = false;
+        ConcurrentHashMap<String, CityAggregate> rebuilt = new ConcurrentHashMap<>();
+        Map<String, CityAggregate> previous;
+        // Not read-only, so with replicas configured the counts still come from the primary.
+        // Always a transaction of its own, so never one a read-only caller opened on a replica.
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            previous = transaction.execute(status -> {
+                // Takes the connection before the lock: committing threads wait on it holding theirs
+                jdbcTemplate.execute("SELECT 1");
+                synchronized (swapLock) {
+                    for (Object[] row : userRepository.countByCityAndAge()) {
+                        rebuilt.computeIfAbsent((String) row[0], c -> new CityAggregate())
+                                .add((Integer) row[1], (Long) row[2]);
+                    }
+                    Map<String, CityAggregate> old = cities;
+                    cities = rebuilt;
+                    return old;
+                }
+            });
+        } catch (RuntimeException e) {
+            dirty = true;
+            throw e;
+        }
+
+        int drifted = 0;
+        for (String city : previous.keySet()) {
+            if (!rebuilt.containsKey(city) && previous.get(city).count() != 0) {
+                drifted++;
+            }
+        }
+        for (Map.Entry<String, CityAggregate> entry : rebuilt.entrySet()) {
+            CityAggregate old = previous.get(entry.getKey());
+            if (old == null || old.count() != entry.getValue().count()) {
+                drifted++;
+            }
+        }
+        return drifted;
+    }
+
+    private record Change(UserSnapshot before, UserSnapshot after) {
+
+        void applyTo(Map<String, CityAggregate> cities) {
+            if (before != null) {
+                apply(cities, before, -1);
+            }
+            if (after != null) {
+                apply(cities, after, 1);
+            }
+        }
+
+        private static void apply(Map<String, CityAggregate> cities, UserSnapshot user, long delta) {
+            if (user.city() != null) {
+                cities.computeIfAbsent(user.city(), c -> new CityAggregate()).add(user.age(), delta);
+            }
+        }
+    }
+
+    private static final class CityAggregate {
+
+        private final TreeMap<Integer, Long> ages = new TreeMap<>();
+        private long count;
+        private long agedCount;
+        private long ageSum;
+
+        synchronized void add(Integer age, long delta) {
+            count += delta;
+            if (age == null) {
+                return;
+            }
+            agedCount += delta;
+            ageSum += age * delta;
+            ages.merge(age, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+
+        synchronized long count() {
+            return count;
+        }
+
+        synchronized CityStats toStats(String city) {
+            if (ages.isEmpty()) {
+                return new CityStats(city, count, null, null, null);
+            }
+            return new CityStats(city, count, ages.firstKey(), ages.lastKey(), (double) ageSum / agedCount);
+        }
+    }
+}
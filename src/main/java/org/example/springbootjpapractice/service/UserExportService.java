@@ -0,0 +1,116 @@
+package org.example.springbootjpapractice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+public class UserExportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${app.users.export.clear-interval:1000}")
+    private int clearInterval;
+
+    /**
+     * Streams every user to {@code out} in id order and returns the number of rows written.
+     * The persistence context is cleared every {@code app.users.export.clear-interval} rows,
+     * so memory use does not grow with the table.
+     */
+    @Transactional(readOnly = true)
+    public long export(Format format, OutputStream out) throws IOException {
+        try (Stream<User> users = userRepository.streamAllOrderById()) {
+            return format == Format.CSV ? writeCsv(users.iterator(), out) : writeNdjson(users.iterator(), out);
+        }
+    }
+
+    private long writeNdjson(Iterator<User> users, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(User.class);
+        long count = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            while (users.hasNext()) {
+                writer.writeValue(generator, users.next());
+                generator.writeRaw('\n');
+                if (++count % clearInterval == 0) {
+                    entityManager.clear();
+                    generator.flush();
+                }
+            }
+        }
+        return count;
+    }
+
+    private long writeCsv(Iterator<User> users, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,name,email,age,city,createdAt,updatedAt\n");
+        long count = 0;
+        while (users.hasNext()) {
+            User user = users.next();
+            writer.write(String.valueOf(user.getId()));
+            writer.write(',');
+            writeCsvField(writer, user.getName());
+            writer.write(',');
+            writeCsvField(writer, user.getEmail());
+            writer.write(',');
+            writeCsvField(writer, user.getAge());
+            writer.write(',');
+            writeCsvField(writer, user.getCity());
+            writer.write(',');
+            writeCsvField(writer, user.getCreatedAt());
+            writer.write(',');
+            writeCsvField(writer, user.getUpdatedAt());
+            writer.write('\n');
+            if (++count % clearInterval == 0) {
+                entityManager.clear();
+                writer.flush();
+            }
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsvField(Writer writer, Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
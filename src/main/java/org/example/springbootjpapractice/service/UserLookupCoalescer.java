@@ -0,0 +1,86 @@
+package org.example.springbootjpapractice.service;
+
+import jakarta.annotation.PostConstruct;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Database lookups of single users by id or email, coalesced through a {@link BatchLoader} into
+ * {@code WHERE id IN (...)} and {@code WHERE email IN (...)} queries. Lookups arriving within
+ * {@code app.users.lookup.window} of each other share a query of up to
+ * {@code app.users.lookup.max-batch-size} keys; a zero window only merges identical lookups.
+ * Each batch query runs in a transaction of its own on the thread of the caller that loads it,
+ * so callers waiting on a batch hold no connection.
+ */
+@Component
+public class UserLookupCoalescer {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.users.lookup.window:1ms}")
+    private Duration window;
+
+    @Value("${app.users.lookup.max-batch-size:100}")
+    private int maxBatchSize;
+
+    private BatchLoader<Long, User> byId;
+    private BatchLoader<String, User> byEmail;
+
+    @PostConstruct
+    void init() {
+        // Not read-only, so with replicas configured misses load from the primary: a row read
+        // from a lagging replica would be cached until it expires
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        byId = new BatchLoader<>(ids -> transaction.execute(
+                status -> index(userRepository.findAllById(ids), User::getId)), maxBatchSize, window);
+        byEmail = new BatchLoader<>(emails -> transaction.execute(
+                status -> index(userRepository.findByEmailIn(emails), User::getEmail)), maxBatchSize, window);
+    }
+
+    public Optional<User> findById(Long id) {
+        return Optional.ofNullable(byId.load(id));
+    }
+
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(byEmail.load(email));
+    }
+
+    /**
+     * The users with the given ids that exist, in the order of {@code ids}.
+     */
+    public Map<Long, User> findAllById(Collection<Long> ids) {
+        return byId.loadAll(ids);
+    }
+
+    public long getBatchCount() {
+        return byId.getBatchCount() + byEmail.getBatchCount();
+    }
+
+    public long getKeyCount() {
+        return byId.getKeyCount() + byEmail.getKeyCount();
+    }
+
+    public long getSharedCount() {
+        return byId.getSharedCount() + byEmail.getSharedCount();
+    }
+
+    private static <K> Map<K, User> index(Collection<User> users, Function<User, K> key) {
+        return users.stream().collect(Collectors.toMap(key, Function.identity()));
+    }
+}
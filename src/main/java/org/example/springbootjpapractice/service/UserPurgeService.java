@@ -0,0 +1,89 @@
+package org.example.springbootjpapractice.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.springbootjpapractice.dto.PurgeProgress;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+@Service
+public class UserPurgeService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.users.purge.batch-size:1000}")
+    private int batchSize;
+
+    /**
+     * Deletes every user matching {@code filter} in batches of {@code app.users.purge.batch-size},
+     * each in its own transaction, and writes one NDJSON {@link PurgeProgress} line per batch to
+     * {@code out}. A batch locks and reads only the column values needed for change events and
+     * removes its rows with a single {@code DELETE ... WHERE id IN (...)}, so each event is for a
+     * row this purge removed. Runs until no row matches. Returns the number of rows deleted.
+     */
+    public long purge(Specification<User> filter, OutputStream out) throws IOException {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        long matched = userRepository.count(filter);
+        long deleted = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            writeProgress(generator, new PurgeProgress(matched, 0, false));
+            Integer removed;
+            do {
+                removed = transaction.execute(status -> deleteBatch(filter));
+                deleted += removed != null ? removed : 0;
+                writeProgress(generator, new PurgeProgress(matched, deleted, removed == null));
+            } while (removed != null);
+        }
+        return deleted;
+    }
+
+    /**
+     * Deletes one batch and returns how many rows it removed, or null once no row matches.
+     */
+    private Integer deleteBatch(Specification<User> filter) {
+        List<UserSnapshot> rows = userRepository.lockSnapshots(filter, batchSize);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        int removed = userRepository.deleteByIds(rows.stream().map(UserSnapshot::id).toList());
+        if (removed != rows.size()) {
+            // The rows were locked, so this cannot tell which ones another writer removed: roll back
+            throw new IllegalStateException("Deleted " + removed + " of " + rows.size() + " locked users");
+        }
+        for (UserSnapshot row : rows) {
+            eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.DELETED, row, null));
+        }
+        return removed;
+    }
+
+    private static void writeProgress(JsonGenerator generator, PurgeProgress progress) throws IOException {
+        generator.writePOJO(progress);
+        generator.writeRaw('\n');
+        generator.flush();
+    }
+}
@@ -1,21 +1,77 @@
 package org.example.springbootjpapractice.service;
 
+import org.example.springbootjpapractice.cache.UserCache;
+import org.example.springbootjpapractice.dto.ChangeStamp;
+import org.example.springbootjpapractice.dto.UserCacheStats;
+import org.example.springbootjpapractice.dto.UserFilter;
+import org.example.springbootjpapractice.dto.UserSearchRequest;
 import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
 import org.example.springbootjpapractice.repository.UserRepository;
+import org.example.springbootjpapractice.repository.UserSpecifications;
+import org.example.springbootjpapractice.search.TrigramIndex;
+import org.example.springbootjpapractice.search.UserNameIndex;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
+@Transactional(readOnly = true)
 public class UserService {
     
+    private static final int ID_BATCH_SIZE = 500;
+    
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserCache userCache;
+    
+    @Autowired
+    private CityStatsService cityStatsService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private UserNameIndex userNameIndex;
+    
+    @Autowired
+    private UserLookupCoalescer userLookupCoalescer;
+    
+    @Autowired
+    private Clock clock;
+    
+    @Transactional
     public User createUser(User user) {
         return userRepository.save(user);
     }
@@ -24,16 +80,63 @@ public class UserService {
         return userRepository.findAll();
     }
     
+    // No transaction here: a lookup waiting on a coalesced batch must not hold a connection.
+    // The batch loads in its own transaction, on the primary.
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<User> getUserById(Long id) {
-        return userRepository.findById(id);
+        return userCache.getById(id, userLookupCoalescer::findById);
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<User> getUserByEmail(String email) {
-        return userRepository.findByEmail(email);
+        return userCache.getByEmail(email, userLookupCoalescer::findByEmail);
+    }
+    
+    /**
+     * The users with the given ids that exist, once each and in the order asked for. Ids the
+     * local cache misses are loaded in batches shared with concurrent single lookups.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<User> getUsersByIds(List<Long> ids) {
+        Set<Long> distinct = new LinkedHashSet<>(ids);
+        List<Long> misses = distinct.stream().filter(id -> userCache.peekById(id).isEmpty()).toList();
+        Map<Long, User> loaded = userLookupCoalescer.findAllById(misses);
+        List<User> users = new ArrayList<>(distinct.size());
+        for (Long id : distinct) {
+            userCache.getById(id, key -> Optional.ofNullable(loaded.get(key))).ifPresent(users::add);
+        }
+        return users;
+    }
+    
+    /**
+     * Validators of one user, taken from the local cache when it holds the user and otherwise
+     * from the version columns alone, so a conditional GET can be answered without loading it.
+     */
+    @Transactional
+    public Optional<ChangeStamp> getUserChangeStamp(Long id) {
+        Optional<User> cached = userCache.peekById(id);
+        if (cached.isPresent()) {
+            return cached.map(ChangeStamp::ofUser);
+        }
+        return userRepository.findUserStamp((root, query, cb) -> cb.equal(root.get("id"), id));
+    }
+    
+    @Transactional
+    public Optional<ChangeStamp> getUserChangeStampByEmail(String email) {
+        Optional<User> cached = userCache.peekByEmail(email);
+        if (cached.isPresent()) {
+            return cached.map(ChangeStamp::ofUser);
+        }
+        return userRepository.findUserStamp((root, query, cb) -> cb.equal(root.get("email"), email));
+    }
+    
+    public ChangeStamp getChangeStamp(Specification<User> filter) {
+        return userRepository.findRowsStamp(filter);
     }
     
     public List<User> findUsersByName(String name) {
-        return userRepository.findByNameContainingIgnoreCase(name);
+        List<Long> ids = userNameIndex.search(name, TrigramIndex.Match.CONTAINS, TrigramIndex.Order.TEXT, false);
+        return ids == null ? userRepository.findByNameContainingIgnoreCase(name) : findAllInOrder(ids);
     }
     
     public List<User> findUsersByCity(String city) {
@@ -53,7 +156,7 @@ public class UserService {
     }
     
     public Long countUsersByCity(String city) {
-        return userRepository.countByCity(city);
+        return cityStatsService.countByCity(city);
     }
     
     public List<User> findUsersByEmailDomain(String domain) {
@@ -65,19 +168,112 @@ public class UserService {
     }
     
     public List<User> findUsersCreatedInLastDays(Long days) {
-        return userRepository.findUsersCreatedInLastDays(days);
+        return userRepository.findUsersCreatedInLastDays(days, LocalDate.now(clock));
     }
     
+    /**
+     * Replaces the name, email, age and city of an existing user. Only columns whose value
+     * actually differs are written. If {@code user} carries a version it must match the stored one.
+     */
+    @Transactional
     public User updateUser(User user) {
-        return userRepository.save(user);
+        Map<String, Object> changes = new LinkedHashMap<>();
+        changes.put("name", user.getName());
+        changes.put("email", user.getEmail());
+        changes.put("age", user.getAge());
+        changes.put("city", user.getCity());
+        return patchUser(user.getId(), changes, user.getVersion());
+    }
+    
+    /**
+     * Applies a partial update with one UPDATE statement covering only the changed columns.
+     * The current row is read as a plain tuple (no managed entity) to validate the version
+     * and publish the before/after images. Throws {@link NoSuchElementException} for an unknown
+     * id and {@link ObjectOptimisticLockingFailureException} when the version does not match.
+     */
+    @Transactional
+    public User patchUser(Long id, Map<String, Object> changes, Long expectedVersion) {
+        validatePatch(changes, true);
+        UserSnapshot before = userRepository.findSnapshotById(id)
+                .orElseThrow(() -> new NoSuchElementException("User not found: " + id));
+        if (expectedVersion != null && !expectedVersion.equals(before.version())) {
+            throw new ObjectOptimisticLockingFailureException(User.class, id);
+        }
+        
+        Map<String, Object> changed = new LinkedHashMap<>();
+        changes.forEach((field, value) -> {
+            if (!Objects.equals(value, snapshotValue(before, field))) {
+                changed.put(field, value);
+            }
+        });
+        if (changed.isEmpty()) {
+            return toUser(before);
+        }
+        
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (userRepository.updateColumns(id, before.version(), changed, now) == 0) {
+            throw new ObjectOptimisticLockingFailureException(User.class, id);
+        }
+        UserSnapshot after = new UserSnapshot(id,
+                (String) changed.getOrDefault("name", before.name()),
+                (String) changed.getOrDefault("email", before.email()),
+                changed.containsKey("age") ? (Integer) changed.get("age") : before.age(),
+                changed.containsKey("city") ? (String) changed.get("city") : before.city(),
+                before.createdAt(), now, before.version() + 1);
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.UPDATED, before, after));
+        return toUser(after);
+    }
+    
+    /**
+     * Applies the same change to every user matching the filters in one set-based UPDATE.
+     * At least one filter is required, and email cannot be bulk-assigned since it is unique.
+     */
+    @Transactional
+    public int patchUsers(UserFilter userFilter, Map<String, Object> changes) {
+        validatePatch(changes, false);
+        if (changes.isEmpty()) {
+            return 0;
+        }
+        Specification<User> filter = userFilter.toSpecification();
+        if (filter == null) {
+            throw new IllegalArgumentException("At least one filter is required");
+        }
+        int updated = userRepository.updateColumns(filter, changes, LocalDateTime.now(clock));
+        if (updated > 0) {
+            eventPublisher.publishEvent(UsersBulkChangedEvent.unknown());
+        }
+        return updated;
     }
     
-    public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+    /**
+     * Deletes one user without loading it as an entity. Returns false if there was no such user.
+     */
+    @Transactional
+    public boolean deleteUser(Long id) {
+        Optional<UserSnapshot> before = userRepository.findSnapshotById(id);
+        if (before.isEmpty() || userRepository.deleteByIds(List.of(id)) == 0) {
+            return false;
+        }
+        eventPublisher.publishEvent(new UserChangedEvent(UserChangedEvent.Type.DELETED, before.get(), null));
+        return true;
     }
     
+    /**
+     * Empties the table with a single TRUNCATE.
+     */
+    @Transactional
+    public void deleteAllUsers() {
+        userRepository.truncate();
+        eventPublisher.publishEvent(UsersBulkChangedEvent.unknown());
+    }
+    
+    @Transactional
     public boolean userExistsByEmail(String email) {
-        return userRepository.findByEmail(email).isPresent();
+        return userCache.existsByEmail(email, userRepository::existsByEmail);
+    }
+    
+    public UserCacheStats getCacheStats() {
+        return userCache.stats();
     }
     
     public Page<User> getAllUsers(Pageable pageable) {
@@ -97,7 +293,36 @@ public class UserService {
     }
     
     public Page<User> findUsersByName(String name, Pageable pageable) {
-        return userRepository.findByNameContainingIgnoreCase(name, pageable);
+        return findUsersByName(name, TrigramIndex.Match.CONTAINS, pageable);
+    }
+    
+    /**
+     * Name search answered by the in-memory name index when sorting by {@code name} or
+     * {@code relevance}: matching ids come from the index and only the requested page is loaded.
+     * Other sort orders, and requests that arrive before the index is built, use the matching
+     * {@code name_lower LIKE} query.
+     */
+    public Page<User> findUsersByName(String name, TrigramIndex.Match match, Pageable pageable) {
+        List<Sort.Order> orders = pageable.getSort().toList();
+        Sort.Order order = orders.isEmpty() ? null : orders.get(0);
+        boolean byRelevance = order != null && order.getProperty().equals("relevance");
+        List<Long> ids = null;
+        if (orders.size() <= 1 && (order == null || byRelevance || order.getProperty().equals("name"))) {
+            ids = userNameIndex.search(name, match,
+                    byRelevance ? TrigramIndex.Order.RELEVANCE : TrigramIndex.Order.TEXT,
+                    order != null && order.isDescending());
+        }
+        if (ids == null) {
+            Pageable fallback = byRelevance
+                    ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by("name"))
+                    : pageable;
+            return match == TrigramIndex.Match.PREFIX
+                    ? userRepository.findByNameWordStartingWithIgnoreCase(name, fallback)
+                    : userRepository.findByNameContainingIgnoreCase(name, fallback);
+        }
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        return new PageImpl<>(findAllInOrder(ids.subList(from, to)), pageable, ids.size());
     }
     
     public Page<User> findUsersByEmailDomain(String domain, Pageable pageable) {
@@ -113,6 +338,174 @@ public class UserService {
     }
     
     public Page<User> findUsersCreatedInLastDays(Long days, Pageable pageable) {
-        return userRepository.findUsersCreatedInLastDays(days, pageable);
+        return userRepository.findUsersCreatedInLastDays(days, LocalDate.now(clock), pageable);
+    }
+    
+    public Page<Map<String, Object>> getAllUsers(List<String> fields, Pageable pageable) {
+        return userRepository.findProjected(UserSpecifications.all(), fields, pageable);
+    }
+    
+    public Page<Map<String, Object>> findUsersByCity(String city, List<String> fields, Pageable pageable) {
+        return userRepository.findProjected(UserSpecifications.hasCity(city), fields, pageable);
+    }
+    
+    public Page<Map<String, Object>> findUsersByAgeRange(Integer minAge, Integer maxAge, List<String> fields, Pageable pageable) {
+        return userRepository.findProjected(UserSpecifications.ageBetween(minAge, maxAge), fields, pageable);
+    }
+    
+    public Page<Map<String, Object>> findUsersOlderThan(Integer age, List<String> fields, Pageable pageable) {
+        return userRepository.findProjected(UserSpecifications.olderThan(age), fields, pageable);
+    }
+    
+    public Page<Map<String, Object>> findUsersByName(String name, List<String> fields, Pageable pageable) {
+        return findUsersByName(name, TrigramIndex.Match.CONTAINS, fields, pageable);
+    }
+    
+    public Page<Map<String, Object>> findUsersByName(String name, TrigramIndex.Match match, List<String> fields,
+            Pageable pageable) {
+        Specification<User> spec = match == TrigramIndex.Match.PREFIX
+                ? UserSpecifications.nameWordStartsWith(name)
+                : UserSpecifications.nameContains(name);
+        return userRepository.findProjected(spec, fields, pageable);
+    }
+    
+    public Page<Map<String, Object>> findUsersByEmailDomain(String domain, List<String> fields, Pageable pageable) {
+        return userRepository.findProjected(UserSpecifications.emailDomain(domain), fields, pageable);
+    }
+    
+    public Page<Map<String, Object>> findUsersByNameAndCity(String name, String city, List<String> fields, Pageable pageable) {
+        return userRepository.findProjected(
+                UserSpecifications.hasName(name).and(UserSpecifications.hasCity(city)), fields, pageable);
+    }
+    
+    public Window<User> scrollAllUsers(ScrollPosition position, int limit, Sort sort) {
+        return userRepository.findAllBy(position, Limit.of(limit), sort);
+    }
+    
+    public Window<User> scrollUsersByCity(String city, ScrollPosition position, int limit, Sort sort) {
+        return userRepository.findByCity(city, position, Limit.of(limit), sort);
+    }
+    
+    public Window<User> scrollUsersByAgeRange(Integer minAge, Integer maxAge, ScrollPosition position, int limit, Sort sort) {
+        return userRepository.findByAgeBetween(minAge, maxAge, position, Limit.of(limit), sort);
+    }
+    
+    public Window<User> scrollUsersOlderThan(Integer age, ScrollPosition position, int limit, Sort sort) {
+        return userRepository.findByAgeGreaterThan(age, position, Limit.of(limit), sort);
+    }
+    
+    public Window<User> scrollUsersByName(String name, ScrollPosition position, int limit, Sort sort) {
+        return userRepository.findByNameContainingIgnoreCase(name, position, Limit.of(limit), sort);
+    }
+    
+    public Window<User> scrollUsersByEmailDomain(String domain, ScrollPosition position, int limit, Sort sort) {
+        return userRepository.findByEmailDomain(domain, position, Limit.of(limit), sort);
+    }
+    
+    public Window<User> scrollUsersByNameAndCity(String name, String city, ScrollPosition position, int limit, Sort sort) {
+        return userRepository.findByNameAndCity(name, city, position, Limit.of(limit), sort);
+    }
+    
+    public Window<User> scrollUsersOlderThanOrderByCreatedAt(Integer age, ScrollPosition position, int limit) {
+        Sort sort = Sort.by(Sort.Direction.DESC, "createdAt").and(Sort.by(Sort.Direction.DESC, "id"));
+        return userRepository.findByAgeGreaterThan(age, position, Limit.of(limit), sort);
+    }
+    
+    public Window<User> scrollUsersCreatedInLastDays(Long days, ScrollPosition position, int limit, Sort sort) {
+        LocalDateTime since = LocalDate.now(clock).minusDays(days).atStartOfDay();
+        return userRepository.findByCreatedAtGreaterThanEqual(since, position, Limit.of(limit), sort);
+    }
+    
+    public long countAllUsers() {
+        return userRepository.count();
+    }
+    
+    public long countUsersByAgeRange(Integer minAge, Integer maxAge) {
+        return userRepository.countByAgeBetween(minAge, maxAge);
+    }
+    
+    public long countUsersOlderThan(Integer age) {
+        return userRepository.countByAgeGreaterThan(age);
+    }
+    
+    public Window<?> searchUsers(UserSearchRequest request, Sort sort, KeysetScrollPosition position, int limit) {
+        return userRepository.search(request, request.fields(), sort, position, limit);
+    }
+    
+    public long countSearchUsers(UserSearchRequest request) {
+        return userRepository.countSearch(request);
+    }
+    
+    public long countUsersByName(String name) {
+        int count = userNameIndex.count(name, TrigramIndex.Match.CONTAINS);
+        return count >= 0 ? count : userRepository.countByNameContainingIgnoreCase(name);
+    }
+    
+    public long countUsersByEmailDomain(String domain) {
+        return userRepository.countByEmailDomain(domain);
+    }
+    
+    public long countUsersByNameAndCity(String name, String city) {
+        return userRepository.countByNameAndCity(name, city);
+    }
+    
+    private List<User> findAllInOrder(List<Long> ids) {
+        Map<Long, User> byId = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += ID_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + ID_BATCH_SIZE, ids.size()));
+            for (User user : userRepository.findAllById(batch)) {
+                byId.put(user.getId(), user);
+            }
+        }
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = byId.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+    
+    private static void validatePatch(Map<String, Object> changes, boolean single) {
+        changes.forEach((field, value) -> {
+            switch (field) {
+                case "name" -> requireType(field, value, String.class, false);
+                case "email" -> {
+                    if (!single) {
+                        throw new IllegalArgumentException("email cannot be changed in bulk");
+                    }
+                    requireType(field, value, String.class, false);
+                }
+                case "age" -> requireType(field, value, Integer.class, true);
+                case "city" -> requireType(field, value, String.class, true);
+                default -> throw new IllegalArgumentException("Field cannot be patched: " + field);
+            }
+        });
+    }
+    
+    private static void requireType(String field, Object value, Class<?> type, boolean nullable) {
+        if (value == null ? !nullable : !type.isInstance(value)) {
+            throw new IllegalArgumentException("Invalid value for " + field + ": " + value);
+        }
+    }
+    
+    private static Object snapshotValue(UserSnapshot user, String field) {
+        return switch (field) {
+            case "name" -> user.name();
+            case "email" -> user.email();
+            case "age" -> user.age();
+            case "city" -> user.city();
+            default -> throw new IllegalArgumentException(field);
+        };
+    }
+    
+    private static User toUser(UserSnapshot snapshot) {
+        User user = new User(snapshot.name(), snapshot.email(), snapshot.age(), snapshot.city());
+        user.setId(snapshot.id());
+        user.setCreatedAt(snapshot.createdAt());
+        user.setUpdatedAt(snapshot.updatedAt());
+        user.setVersion(snapshot.version());
+        return user;
     }
 }
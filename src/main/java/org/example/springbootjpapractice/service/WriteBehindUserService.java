@@ -0,0 +1,220 @@
+package org.example.springbootjpapractice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.example.springbootjpapractice.dto.BulkInsertResult;
+import org.example.springbootjpapractice.dto.BulkInsertResult.RowResult;
+import org.example.springbootjpapractice.dto.PendingWrite;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.service.BulkUserService.BulkRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional write-behind path for {@code POST /api/users}. Accepted users wait in a bounded queue
+ * and a single flusher thread group-commits them through {@link BulkUserService#writeBatch}, so a
+ * burst of signups costs a few large transactions instead of one per request.
+ */
+@Service
+public class WriteBehindUserService implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindUserService.class);
+
+    @Autowired
+    private BulkUserService bulkUserService;
+
+    @Autowired
+    private UserService userService;
+
+    @Value("${app.users.write-behind.enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.users.write-behind.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.users.write-behind.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.users.write-behind.max-delay:20ms}")
+    private Duration maxDelay;
+
+    @Value("${app.users.write-behind.status-ttl:10m}")
+    private Duration statusTtl;
+
+    private BlockingQueue<Queued> queue;
+    private Cache<String, PendingWrite> statuses;
+    private final Set<String> pendingEmails = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    @PostConstruct
+    void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        statuses = Caffeine.newBuilder().expireAfterWrite(statusTtl).maximumSize(queueCapacity * 10L).build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * Validates the user, claims its email and queues it for the flusher. Throws
+     * {@link DuplicateKeyException} if the email is taken or already queued, and
+     * {@link RejectedExecutionException} if the queue is full.
+     */
+    public PendingWrite submit(User user) {
+        if (!running) {
+            throw new RejectedExecutionException("Write-behind is not running");
+        }
+        BulkUserService.validate(user);
+        String email = user.getEmail();
+        if (!pendingEmails.add(email)) {
+            throw new DuplicateKeyException("Email already queued: " + email);
+        }
+        if (userService.userExistsByEmail(email)) {
+            pendingEmails.remove(email);
+            throw new DuplicateKeyException("Email already exists: " + email);
+        }
+
+        PendingWrite status = PendingWrite.queued(UUID.randomUUID().toString(), email);
+        statuses.put(status.trackingId(), status);
+        if (!queue.offer(new Queued(status, new User(user.getName(), email, user.getAge(), user.getCity())))) {
+            statuses.invalidate(status.trackingId());
+            pendingEmails.remove(email);
+            throw new RejectedExecutionException("Write-behind queue is full");
+        }
+        return status;
+    }
+
+    public Optional<PendingWrite> getStatus(String trackingId) {
+        return Optional.ofNullable(statuses.getIfPresent(trackingId));
+    }
+
+    @Override
+    public void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        flusher = Thread.ofPlatform().name("user-write-behind").daemon().start(this::flushLoop);
+    }
+
+    /**
+     * Stops accepting users and waits for the flusher to drain what is already queued.
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Start before and stop after the web server, so nothing is accepted that cannot be flushed
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void flushLoop() {
+        List<Queued> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Queued first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fill(batch);
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                log.error("Write-behind flush of {} users failed", batch.size(), e);
+                for (Queued queued : batch) {
+                    complete(queued, queued.status().rejected(e.getMessage()));
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Tops the batch up to {@code batch-size}, waiting at most {@code max-delay} for more users.
+     */
+    private void fill(List<Queued> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxDelay.toNanos();
+        while (batch.size() < batchSize) {
+            if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            Queued next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<Queued> batch) {
+        List<BulkRow> rows = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            rows.add(new BulkRow(i, batch.get(i).user()));
+        }
+        for (RowResult result : bulkUserService.writeBatch(rows)) {
+            Queued queued = batch.get(result.index());
+            complete(queued, result.status() == BulkInsertResult.Status.ACCEPTED
+                    ? queued.status().created(result.id())
+                    : queued.status().rejected(result.error()));
+        }
+    }
+
+    private void complete(Queued queued, PendingWrite status) {
+        statuses.put(status.trackingId(), status);
+        // Released only after the commit, so a second signup with this email now sees the row
+        pendingEmails.remove(status.email());
+    }
+
+    private record Queued(PendingWrite status, User user) {
+    }
+}
@@ -0,0 +1,24 @@
+create sequence users_seq start with 1 increment by 50;
+
+create table users (
+    id bigint not null,
+    name varchar(100) not null,
+    email varchar(150) not null,
+    age integer,
+    city varchar(100),
+    created_at timestamp(6),
+    updated_at timestamp(6),
+    version bigint,
+    name_lower varchar(100),
+    email_reversed varchar(150),
+    primary key (id),
+    constraint uk_users_email unique (email)
+);
+
+create index idx_users_city on users (city);
+create index idx_users_age on users (age);
+create index idx_users_created_at on users (created_at);
+create index idx_users_updated_at on users (updated_at);
+create index idx_users_name_city on users (name, city);
+create index idx_users_name_lower on users (name_lower);
+create index idx_users_email_reversed on users (email_reversed);
@@ -0,0 +1,12 @@
+create table user_outbox (
+    id bigint generated by default as identity,
+    position bigint,
+    type varchar(16) not null,
+    user_id bigint,
+    payload varchar(2000),
+    created_at timestamp(6) not null,
+    primary key (id)
+);
+
+create unique index idx_user_outbox_position on user_outbox (position);
+create index idx_user_outbox_created_at on user_outbox (created_at);
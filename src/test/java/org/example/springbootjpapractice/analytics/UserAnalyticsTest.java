@@ -0,0 +1,44 @@
+package org.example.springbootjpapractice.analytics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserAnalyticsTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserAnalytics analytics = new UserAnalytics();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(analytics, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(analytics, "transactionManager", mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void failedLoadsAreRetriedByTheNextScheduledRefresh() {
+        when(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(0);
+
+        assertThatThrownBy(analytics::refresh).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(analytics.getInfo().stale()).isTrue();
+        assertThat(analytics.getInfo().loadedAt()).isNull();
+
+        analytics.scheduledRefresh();
+
+        verify(jdbcTemplate, times(2)).queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        assertThat(analytics.getInfo().stale()).isFalse();
+        assertThat(analytics.getInfo().loadedAt()).isNotNull();
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.springbootjpapractice.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void neverReportsAnAddedValueAsAbsent() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("user" + i + "@example.com")).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTargetUpToCapacity() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("other" + i + "@example.org")) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+
+    @Test
+    void saturatesOnceMoreDistinctValuesThanCapacityAreAdded() {
+        BloomFilter filter = new BloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        for (int i = 0; i < 1_000; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        assertThat(filter.insertions()).isLessThanOrEqualTo(1_000);
+        assertThat(filter.isSaturated()).isFalse();
+
+        for (int i = 1_000; i < 1_100; i++) {
+            filter.put("user" + i + "@example.com");
+        }
+        assertThat(filter.isSaturated()).isTrue();
+    }
+}
@@ -0,0 +1,167 @@
+package org.example.springbootjpapractice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserCacheTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final AtomicInteger loads = new AtomicInteger();
+    private UserCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserCache();
+        ReflectionTestUtils.setField(cache, "sharedTier", new InMemorySharedCacheTier());
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(cache, "userRepository", userRepository);
+        ReflectionTestUtils.setField(cache, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(cache, "taskExecutor", new TaskExecutorAdapter(Runnable::run));
+        ReflectionTestUtils.setField(cache, "localMaxSize", 100L);
+        ReflectionTestUtils.setField(cache, "localTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cache, "sharedTtl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cache, "bloomFalsePositiveRate", 0.01);
+        cache.init();
+    }
+
+    @Test
+    void readsThroughOnceThenServesFromCache() {
+        User loaded = cache.getById(1L, this::load).orElseThrow();
+
+        assertThat(cache.getById(1L, this::load)).containsSame(loaded);
+        assertThat(loads).hasValue(1);
+
+        cache.evict(1L, "ann@example.com");
+        assertThat(cache.getById(1L, this::load)).isPresent();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadsRacingAnEvictionAreNotCached() {
+        // An update commits and evicts while the old row is being loaded
+        User stale = cache.getById(1L, id -> {
+            Optional<User> old = load(id);
+            cache.evict(id, "ann@example.com");
+            return old;
+        }).orElseThrow();
+
+        assertThat(stale.getId()).isEqualTo(1L);
+        assertThat(cache.peekById(1L)).isEmpty();
+        assertThat(cache.getById(1L, this::load)).isPresent();
+        assertThat(loads).hasValue(2);
+        assertThat(cache.peekById(1L)).isPresent();
+
+        cache.getByEmail("bob@example.com", email -> {
+            cache.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED,
+                    snapshot(2L, "bob@example.com"), snapshot(2L, "bob@example.com")));
+            return Optional.of(user(2L, email));
+        });
+        assertThat(cache.peekByEmail("bob@example.com")).isEmpty();
+        // Nor left in the shared tier for the next lookup
+        cache.getById(2L, id -> {
+            loads.incrementAndGet();
+            return Optional.of(user(2L, "bob@example.com"));
+        });
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void emailsOutsideTheFilterAreAnsweredWithoutTheDatabase() {
+        cache.rebuildEmailFilter(1, List.of("ann@example.com").iterator());
+
+        assertThat(cache.existsByEmail("bob@example.com", email -> fail())).isFalse();
+        assertThat(cache.getByEmail("bob@example.com", email -> fail())).isEmpty();
+        assertThat(cache.existsByEmail("ann@example.com", email -> true)).isTrue();
+    }
+
+    @Test
+    void committedInsertsAreAddedToTheFilter() {
+        cache.rebuildEmailFilter(1, List.of("ann@example.com").iterator());
+
+        cache.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.CREATED, null, snapshot(2L, "bob@example.com")));
+
+        assertThat(cache.existsByEmail("bob@example.com", email -> true)).isTrue();
+    }
+
+    @Test
+    void emailsCommittedDuringARebuildAreKept() {
+        Iterator<String> source = List.of("ann@example.com", "bob@example.com").iterator();
+        Iterator<String> recordingMidway = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return source.hasNext();
+            }
+
+            @Override
+            public String next() {
+                cache.recordEmail("late@example.com");
+                return source.next();
+            }
+        };
+
+        cache.rebuildEmailFilter(2, recordingMidway);
+
+        assertThat(cache.existsByEmail("late@example.com", email -> true)).isTrue();
+        assertThat(cache.existsByEmail("ann@example.com", email -> true)).isTrue();
+    }
+
+    @Test
+    void saturatedFilterIsRebuiltFromTheTable() {
+        List<String> emails = new ArrayList<>();
+        cache.rebuildEmailFilter(0, emails.iterator());
+        when(userRepository.count()).thenAnswer(invocation -> (long) emails.size());
+        when(userRepository.streamAllEmails()).thenAnswer(invocation -> emails.stream());
+
+        IntStream.range(0, 3_000).mapToObj(i -> "user" + i + "@example.com").forEach(email -> {
+            emails.add(email);
+            cache.recordEmail(email);
+        });
+
+        verify(userRepository, atLeastOnce()).streamAllEmails();
+        BloomFilter filter = (BloomFilter) ReflectionTestUtils.getField(cache, "emailFilter");
+        assertThat(filter.isSaturated()).isFalse();
+        assertThat(filter.capacity()).isGreaterThanOrEqualTo(emails.size());
+    }
+
+    private Optional<User> load(Long id) {
+        loads.incrementAndGet();
+        return Optional.of(user(id, "ann@example.com"));
+    }
+
+    private static User user(Long id, String email) {
+        User user = new User("Ann", email, 30, "Oslo");
+        user.setId(id);
+        return user;
+    }
+
+    private static UserSnapshot snapshot(Long id, String email) {
+        return new UserSnapshot(id, "Bob", email, 40, "Bergen", null, null, 0L);
+    }
+
+    private static <T> T fail() {
+        throw new AssertionError("Should not have asked the database");
+    }
+}
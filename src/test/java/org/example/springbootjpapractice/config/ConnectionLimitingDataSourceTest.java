@@ -0,0 +1,59 @@
+package org.example.springbootjpapractice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionLimitingDataSourceTest {
+
+    @Test
+    void closingTheContextClosesTheWrappedPool() throws Exception {
+        HikariDataSource pool;
+        try (var context = new AnnotationConfigApplicationContext()) {
+            context.getBeanFactory().addBeanPostProcessor(
+                    ExecutionConfig.connectionLimitingDataSourcePostProcessor(2, Duration.ofSeconds(1)));
+            context.register(PoolConfig.class);
+            context.refresh();
+
+            DataSource dataSource = context.getBean(DataSource.class);
+            assertThat(dataSource).isInstanceOf(ConnectionLimitingDataSource.class);
+            try (Connection connection = dataSource.getConnection()) {
+                assertThat(connection.isValid(1)).isTrue();
+            }
+            pool = dataSource.unwrap(HikariDataSource.class);
+            assertThat(pool.isClosed()).isFalse();
+        }
+        assertThat(pool.isClosed()).isTrue();
+    }
+
+    @Test
+    void closingTheLimiterClosesItsTarget() throws Exception {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:h2:mem:limiter-close-direct");
+        try (var limiter = new ConnectionLimitingDataSource(pool, 2, Duration.ofSeconds(1))) {
+            try (Connection connection = limiter.getConnection()) {
+                assertThat(connection.isValid(1)).isTrue();
+            }
+        }
+        assertThat(pool.isClosed()).isTrue();
+    }
+
+    @Configuration
+    static class PoolConfig {
+
+        @Bean
+        DataSource dataSource() {
+            HikariDataSource pool = new HikariDataSource();
+            pool.setJdbcUrl("jdbc:h2:mem:limiter-close");
+            return pool;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.springbootjpapractice.config;
+
+import jakarta.servlet.http.Cookie;
+import org.example.springbootjpapractice.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Primary and replica are two separate in-memory H2 databases, so which one answered
+ * shows up in the row counts.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReadWriteRoutingTest.PRIMARY_URL,
+        "app.datasource.replicas.urls=" + ReadWriteRoutingTest.REPLICA_URL
+})
+@AutoConfigureMockMvc
+class ReadWriteRoutingTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL =
+            "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:replica-schema.sql'";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    private final JdbcTemplate primary = new JdbcTemplate(new DriverManagerDataSource(PRIMARY_URL, "sa", "password"));
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", "password"));
+
+    @BeforeEach
+    void seedReplica() {
+        replica.update("DELETE FROM users");
+        replica.update("INSERT INTO users (id, name, email, age, city, version) "
+                + "VALUES (1000, 'Replica Only', 'replica@replica.test', 40, 'Nowhere', 0)");
+    }
+
+    @Test
+    void readOnlyServiceMethodsUseReplica() {
+        assertThat(userService.countAllUsers()).isEqualTo(1);
+        assertThat(primaryCount()).isGreaterThan(1);
+    }
+
+    @Test
+    void writesUsePrimaryAndPinTheClientThere() throws Exception {
+        long before = primaryCount();
+        Cookie pin = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Routed\",\"email\":\"routed@primary.test\",\"age\":30}"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+        assertThat(primaryCount()).isEqualTo(before + 1);
+
+        mockMvc.perform(get("/api/users").cookie(pin))
+                .andExpect(jsonPath("$.page.totalElements").value(before + 1));
+        mockMvc.perform(get("/api/users"))
+                .andExpect(jsonPath("$.page.totalElements").value(1));
+    }
+
+    @Test
+    void everyWriteRenewsThePin() throws Exception {
+        Cookie first = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"First\",\"email\":\"first@primary.test\",\"age\":30}"))
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+        Thread.sleep(5);
+
+        Cookie renewed = mockMvc.perform(post("/api/users").cookie(first)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Second\",\"email\":\"second@primary.test\",\"age\":30}"))
+                .andExpect(status().isCreated())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE))
+                .andReturn().getResponse().getCookie(ReadYourWritesFilter.COOKIE);
+
+        assertThat(renewed.getValue()).isNotEqualTo(first.getValue());
+    }
+
+    @Test
+    void forgedPinsAreIgnored() throws Exception {
+        String forever = String.valueOf(Long.MAX_VALUE);
+        for (String value : new String[]{forever, forever + ".c2lnbmF0dXJl", "garbage"}) {
+            mockMvc.perform(get("/api/users").cookie(new Cookie(ReadYourWritesFilter.COOKIE, value)))
+                    .andExpect(jsonPath("$.page.totalElements").value(1));
+        }
+    }
+
+    private long primaryCount() {
+        return primary.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+}
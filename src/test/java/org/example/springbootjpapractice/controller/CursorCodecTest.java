@@ -0,0 +1,73 @@
+package org.example.springbootjpapractice.controller;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CursorCodecTest {
+
+    private final CursorCodec codec = new CursorCodec();
+
+    CursorCodecTest() {
+        ReflectionTestUtils.setField(codec, "objectMapper", JsonMapper.builder()
+                .findAndAddModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build());
+    }
+
+    @Test
+    void roundTripsKeysAsTheirFieldTypes() {
+        Sort sort = Sort.by("createdAt", "age", "id");
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("createdAt", LocalDateTime.of(2024, 3, 1, 12, 30, 15, 123_000_000));
+        keys.put("age", 42);
+        keys.put("id", 7L);
+
+        String cursor = codec.encode(ScrollPosition.forward(keys));
+        KeysetScrollPosition decoded = codec.decode(cursor, sort);
+
+        assertThat(cursor).doesNotContain("+", "/", "=");
+        assertThat(decoded.getKeys()).containsExactlyEntriesOf(keys);
+    }
+
+    @Test
+    void keepsNullKeys() {
+        Map<String, Object> keys = new HashMap<>();
+        keys.put("age", null);
+        keys.put("id", 7L);
+
+        KeysetScrollPosition decoded = codec.decode(codec.encode(ScrollPosition.forward(keys)), Sort.by("age", "id"));
+
+        assertThat(decoded.getKeys()).containsEntry("age", null).containsEntry("id", 7L);
+    }
+
+    @Test
+    void noCursorIsTheInitialPosition() {
+        assertThat(codec.decode(null, Sort.by("id")).isInitial()).isTrue();
+        assertThat(codec.decode(" ", Sort.by("id")).isInitial()).isTrue();
+    }
+
+    @Test
+    void rejectsForeignAndMalformedCursors() {
+        String byName = codec.encode(ScrollPosition.forward(Map.of("name", "Ann", "id", 1L)));
+        String unknownField = Base64.getUrlEncoder().encodeToString("{\"password\":1}".getBytes());
+
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(byName, Sort.by("age", "id")));
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode("not a cursor", Sort.by("id")));
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.decode(unknownField, Sort.by("password")));
+        assertThatIllegalArgumentException().isThrownBy(() -> codec.encode(ScrollPosition.offset()));
+    }
+}
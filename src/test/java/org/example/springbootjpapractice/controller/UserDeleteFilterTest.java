@@ -0,0 +1,82 @@
+package org.example.springbootjpapractice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserDeleteFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void wildcardsInFiltersMatchOnlyThemselves() throws Exception {
+        long before = userCount();
+        assertThat(before).isPositive();
+
+        for (String wildcard : new String[]{"%", "_", "\\", "%.com"}) {
+            MvcResult result = mockMvc.perform(delete("/api/users").param("emailDomain", wildcard))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            mockMvc.perform(asyncDispatch(result))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string(startsWith("{\"matched\":0,")));
+        }
+
+        assertThat(userCount()).isEqualTo(before);
+    }
+
+    @Test
+    void blankFiltersCountAsNoFilter() throws Exception {
+        long before = userCount();
+
+        mockMvc.perform(delete("/api/users").param("emailDomain", ""))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/api/users").param("city", " ").param("name", ""))
+                .andExpect(status().isBadRequest());
+
+        assertThat(userCount()).isEqualTo(before);
+    }
+
+    @Test
+    void purgesEveryMatchingRow() throws Exception {
+        String city = "Purgeville-" + UUID.randomUUID();
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.update("INSERT INTO users (id, name, email, age, city, version) "
+                    + "VALUES (NEXT VALUE FOR users_seq, 'Purge', ?, 30, ?, 0)", UUID.randomUUID() + "@purge.test", city);
+        }
+
+        MvcResult result = mockMvc.perform(delete("/api/users").param("city", city))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(endsWith("{\"matched\":3,\"deleted\":3,\"done\":true}\n")));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE city = ?", Long.class, city)).isZero();
+    }
+
+    private long userCount() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.springbootjpapractice.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserPageValidatorsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void pagesWithoutValidatorsSkipTheStamp() throws Exception {
+        mockMvc.perform(get("/api/users"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void pageETagsAreWeakAndVaryOnAccept() throws Exception {
+        String etag = mockMvc.perform(get("/api/users").header(HttpHeaders.IF_NONE_MATCH, "\"none\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, startsWith("W/\"")))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/users").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void projectionsGetTheirOwnETag() throws Exception {
+        String full = mockMvc.perform(get("/api/users").header(HttpHeaders.IF_NONE_MATCH, "\"none\""))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String projected = mockMvc.perform(get("/api/users").param("fields", "id,name")
+                        .header(HttpHeaders.IF_NONE_MATCH, full))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertThat(projected).isNotEqualTo(full);
+    }
+}
@@ -0,0 +1,154 @@
+package org.example.springbootjpapractice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserPatchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void updatesOnlyTheChangedColumns() throws Exception {
+        long id = create("Patch Target", 30, "Oslo");
+        // A concurrent write to another column, which a full-row UPDATE would overwrite
+        jdbcTemplate.update("UPDATE users SET name = 'Renamed Elsewhere' WHERE id = ?", id);
+
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"city\":\"Bergen\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.city").value("Bergen"))
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"" + id + "-1\""));
+
+        assertThat(jdbcTemplate.queryForMap("SELECT name, city, version FROM users WHERE id = ?", id))
+                .containsEntry("NAME", "Renamed Elsewhere")
+                .containsEntry("CITY", "Bergen")
+                .containsEntry("VERSION", 1L);
+    }
+
+    @Test
+    void unchangedValuesDoNotWrite() throws Exception {
+        long id = create("No Op", 41, "Oslo");
+
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":41,\"city\":\"Oslo\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(0));
+    }
+
+    @Test
+    void staleVersionIsAConflict() throws Exception {
+        long id = create("Versioned", 25, "Oslo");
+        patchCity(id, "Bergen");
+
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"city\":\"Trondheim\",\"version\":0}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .header(HttpHeaders.IF_MATCH, "\"" + id + "-0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"city\":\"Trondheim\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .header(HttpHeaders.IF_MATCH, "\"" + id + "-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"city\":\"Trondheim\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2));
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .header(HttpHeaders.IF_MATCH, "W/\"" + id + "-2\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"city\":\"Tromso\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3));
+    }
+
+    @Test
+    void rejectsUnknownFieldsAndUsers() throws Exception {
+        long id = create("Strict", 50, "Oslo");
+
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"createdAt\":\"2020-01-01T00:00:00\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":null}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/users/{id}", Long.MAX_VALUE)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"city\":\"Bergen\"}"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void bulkPatchNeedsAFilterAndUpdatesMatchingRows() throws Exception {
+        String city = "Patchville-" + UUID.randomUUID();
+        create("Bulk One", 20, city);
+        create("Bulk Two", 60, city);
+
+        mockMvc.perform(patch("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":33}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/users").param("city", city)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"same@example.com\"}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/users").param("city", city)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"age\":33}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2));
+
+        assertThat(jdbcTemplate.queryForList("SELECT age FROM users WHERE city = ?", Integer.class, city))
+                .containsOnly(33);
+    }
+
+    private void patchCity(long id, String city) throws Exception {
+        mockMvc.perform(patch("/api/users/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"city\":\"" + city + "\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private long create(String name, int age, String city) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "name", name, "email", UUID.randomUUID() + "@patch.test", "age", age, "city", city));
+        String response = mockMvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode created = objectMapper.readTree(response);
+        return created.get("id").asLong();
+    }
+}
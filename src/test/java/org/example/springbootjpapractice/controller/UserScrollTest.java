@@ -0,0 +1,97 @@
+package org.example.springbootjpapractice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserScrollTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void nullableSortKeysAreRejected() throws Exception {
+        for (String sortBy : new String[]{"age", "city", "createdAt", "updatedAt", "noSuchField"}) {
+            mockMvc.perform(get("/api/users/scroll").param("sortBy", sortBy))
+                    .andExpect(status().isBadRequest());
+        }
+        mockMvc.perform(get("/api/users/search/city/{city}/scroll", "Oslo").param("sortBy", "age"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void keysTheFilterMakesNonNullAreAllowed() throws Exception {
+        mockMvc.perform(get("/api/users/search/age/scroll").param("minAge", "20").param("maxAge", "40"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/search/city/{city}/scroll", "Oslo").param("sortBy", "city"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void rejectsSizesBelowOne() throws Exception {
+        mockMvc.perform(get("/api/users/scroll").param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users/search/name/{name}/scroll", "John").param("size", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void scrollsEveryRowWhateverItsNullableColumns() throws Exception {
+        String city = "Scrollville-" + UUID.randomUUID();
+        List<Long> ids = new ArrayList<>();
+        for (Integer age : new Integer[]{null, 30, null, 25, null}) {
+            ids.add(create(age, city));
+        }
+
+        List<Long> scrolled = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/users/search/city/{city}/scroll", city).param("size", "2").param("sortBy", "id");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            page.get("content").forEach(user -> scrolled.add(user.get("id").asLong()));
+            cursor = page.get("hasNext").asBoolean() ? page.get("nextCursor").asText() : null;
+        } while (cursor != null && scrolled.size() < 100);
+
+        assertThat(scrolled).containsExactlyElementsOf(ids);
+    }
+
+    private long create(Integer age, String city) throws Exception {
+        Map<String, Object> user = new HashMap<>();
+        user.put("name", "Scroll Test");
+        user.put("email", UUID.randomUUID() + "@scroll.test");
+        user.put("age", age);
+        user.put("city", city);
+        String response = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+}
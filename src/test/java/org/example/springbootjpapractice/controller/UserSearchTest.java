@@ -0,0 +1,162 @@
+package org.example.springbootjpapractice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class UserSearchTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void pagesThroughNullSortKeysInBothDirections() throws Exception {
+        String city = "Searchville-" + UUID.randomUUID();
+        Integer[] ages = {30, null, 25, null, 30, null, 41};
+        List<Long> ids = new ArrayList<>();
+        for (Integer age : ages) {
+            ids.add(create(age, city));
+        }
+
+        List<Long> ascending = collect(city, "age", "asc", 2);
+        List<Long> descending = collect(city, "age", "desc", 2);
+
+        // Nulls last in both directions, ties broken by id
+        assertThat(ascending).containsExactly(ids.get(2), ids.get(0), ids.get(4), ids.get(6),
+                ids.get(1), ids.get(3), ids.get(5));
+        assertThat(descending).containsExactly(ids.get(6), ids.get(4), ids.get(0), ids.get(2),
+                ids.get(5), ids.get(3), ids.get(1));
+    }
+
+    @Test
+    void pagesThroughNullCities() throws Exception {
+        String domain = "@" + UUID.randomUUID() + ".test";
+        List<Long> ids = new ArrayList<>();
+        for (String city : new String[]{null, "Bergen", null, "Alta"}) {
+            ids.add(create(null, city, UUID.randomUUID() + domain));
+        }
+
+        Map<String, Object> request = new HashMap<>(Map.of("emailDomain", domain, "sortBy", "city", "size", 1));
+        assertThat(collect(request)).containsExactly(ids.get(3), ids.get(1), ids.get(0), ids.get(2));
+    }
+
+    @Test
+    void likeFiltersTreatWildcardsLiterally() throws Exception {
+        String city = "Wildcards-" + UUID.randomUUID();
+        create(20, city);
+
+        search(Map.of("city", city, "nameContains", "%"))
+                .andExpect(jsonPath("$.content").isEmpty());
+        search(Map.of("city", city, "emailDomain", "_"))
+                .andExpect(jsonPath("$.content").isEmpty());
+        search(Map.of("city", city, "nameContains", "search"))
+                .andExpect(jsonPath("$.content.length()").value(1));
+    }
+
+    @Test
+    void rejectsPageSizesBelowOne() throws Exception {
+        mockMvc.perform(post("/api/users/search").contentType(MediaType.APPLICATION_JSON).content("{\"size\":0}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/users/search").contentType(MediaType.APPLICATION_JSON).content("{\"size\":-5}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void prefixNameSearchOutsideTheIndexOnlyMatchesWordStarts() throws Exception {
+        String token = "pfx" + UUID.randomUUID().toString().replace("-", "");
+        long leading = create(token + " Alpha", 30, UUID.randomUUID() + "@search.test");
+        long word = create("Alpha " + token, 31, UUID.randomUUID() + "@search.test");
+        create("Alpha" + token, 32, UUID.randomUUID() + "@search.test");
+
+        // Sorting by age bypasses the name index and goes to the database
+        for (String fields : new String[]{null, "id,name"}) {
+            var request = get("/api/users/search/name/{name}", token.toUpperCase(Locale.ROOT))
+                    .param("match", "prefix").param("sortBy", "age");
+            if (fields != null) {
+                request.param("fields", fields);
+            }
+            JsonNode page = objectMapper.readTree(mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            List<Long> ids = new ArrayList<>();
+            page.get("content").forEach(user -> ids.add(user.get("id").asLong()));
+            assertThat(ids).containsExactly(leading, word);
+        }
+    }
+
+    private List<Long> collect(String city, String sortBy, String sortDir, int size) throws Exception {
+        return collect(new HashMap<>(Map.of("city", city, "sortBy", sortBy, "sortDir", sortDir, "size", size)));
+    }
+
+    private List<Long> collect(Map<String, Object> request) throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            if (cursor != null) {
+                request.put("cursor", cursor);
+            }
+            JsonNode page = objectMapper.readTree(search(request).andReturn().getResponse().getContentAsString());
+            page.get("content").forEach(user -> ids.add(user.get("id").asLong()));
+            cursor = page.get("hasNext").asBoolean() ? page.get("nextCursor").asText() : null;
+            assertThat(ids.size()).isLessThan(100);
+        } while (cursor != null);
+        return ids;
+    }
+
+    private ResultActions search(Map<String, Object> request) throws Exception {
+        return mockMvc.perform(post("/api/users/search")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+    }
+
+    private long create(Integer age, String city) throws Exception {
+        return create(age, city, UUID.randomUUID() + "@search.test");
+    }
+
+    private long create(Integer age, String city, String email) throws Exception {
+        return create("Search Test", age, city, email);
+    }
+
+    private long create(String name, Integer age, String email) throws Exception {
+        return create(name, age, null, email);
+    }
+
+    private long create(String name, Integer age, String city, String email) throws Exception {
+        Map<String, Object> user = new HashMap<>();
+        user.put("name", name);
+        user.put("email", email);
+        user.put("age", age);
+        user.put("city", city);
+        String response = mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(user)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.springbootjpapractice.load;
+
+import org.example.springbootjpapractice.SpringBootJpaPracticeApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Floods the scan endpoints while a steady stream of id lookups runs alongside. With admission
+ * control the excess scans are turned away with 429/503 instead of timing out, and lookups keep
+ * succeeding because scans cannot hold more than their share of connections.
+ * Run with {@code ./mvnw -Pload-test test -Dtest=AdmissionControlLoadTest}.
+ */
+@Tag("load")
+class AdmissionControlLoadTest {
+
+    private static final int ROWS = 20_000;
+    private static final int SCANS = 5_000;
+    private static final int LOOKUPS = 5_000;
+
+    @Test
+    void lookupsStayAvailableWhileScansAreShed() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootJpaPracticeApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:admission-load;DB_CLOSE_DELAY=-1",
+                        "--app.seed.users=" + ROWS,
+                        "--spring.threads.virtual.enabled=true",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN")) {
+            long firstId = context.getBean(JdbcTemplate.class).queryForObject("SELECT MIN(id) FROM users", Long.class);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port + "/api/users";
+
+            LoadGenerator.Result scans;
+            LoadGenerator.Result lookups;
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                Future<LoadGenerator.Result> scanRun = executor.submit(() -> new LoadGenerator().run(
+                        "name scans", SCANS, 300, n -> URI.create(base + "/search/name/" + (char) ('a' + n % 26)
+                                + "?match=contains&size=100")));
+                Future<LoadGenerator.Result> lookupRun = executor.submit(() -> new LoadGenerator().run(
+                        "id lookups", LOOKUPS, 50, n -> URI.create(base + "/" + (firstId + n % ROWS))));
+                scans = scanRun.get();
+                lookups = lookupRun.get();
+            }
+
+            System.out.println(scans);
+            System.out.println(lookups);
+            assertTrue(scans.rejected() > 0, () -> "Expected scans to be shed: " + scans);
+            assertEquals(scans.rejected(), scans.errors(), () -> "Scans failed other than by rejection: " + scans);
+            assertTrue(lookups.errors() < LOOKUPS / 100, () -> "Too many failed lookups: " + lookups);
+        }
+    }
+}
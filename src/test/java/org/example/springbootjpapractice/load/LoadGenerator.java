@@ -0,0 +1,82 @@
+package org.example.springbootjpapractice.load;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * Fires a fixed number of GET requests with a bounded number in flight and reports
+ * throughput and latency percentiles. Each request runs on its own virtual thread so the
+ * client side is never the bottleneck.
+ */
+final class LoadGenerator {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    Result run(String label, int requests, int concurrency, IntFunction<URI> target) throws InterruptedException {
+        long[] latencies = new long[requests];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+
+        long started = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < requests; i++) {
+                inFlight.acquire();
+                int n = i;
+                executor.submit(() -> {
+                    long begin = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(
+                                HttpRequest.newBuilder(target.apply(n)).timeout(Duration.ofSeconds(60)).build(),
+                                HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() >= 400) {
+                            errors.incrementAndGet();
+                        }
+                        if (response.statusCode() == 429 || response.statusCode() == 503) {
+                            rejected.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    } finally {
+                        latencies[n] = System.nanoTime() - begin;
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        long elapsed = System.nanoTime() - started;
+
+        Arrays.sort(latencies);
+        return new Result(label, requests, errors.get(), rejected.get(), requests / (elapsed / 1e9),
+                percentile(latencies, 0.50), percentile(latencies, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * {@code errors} counts every failed request, including the {@code rejected} ones that got 429 or 503.
+     */
+    record Result(String label, int requests, int errors, int rejected, double throughput,
+                  double p50Millis, double p99Millis) {
+
+        @Override
+        public String toString() {
+            return String.format("%-24s %8d req %6d err %6d rej %10.1f req/s   p50 %8.2f ms   p99 %8.2f ms",
+                    label, requests, errors, rejected, throughput, p50Millis, p99Millis);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package org.example.springbootjpapractice.load;
+
+import org.example.springbootjpapractice.SpringBootJpaPracticeApplication;
+import org.example.springbootjpapractice.entity.User;
+import org.example.springbootjpapractice.seed.SyntheticUsers;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives the main read endpoints against a synthetic table of {@code load.seed.users} rows
+ * (default 200k). Request targets are drawn from the same generator as the data, so lookups
+ * hit real rows and city and name searches follow the data's skew.
+ * Run with {@code ./mvnw -Pload-test test -Dtest=SeededScenarioLoadTest -Dload.seed.users=1000000}.
+ */
+@Tag("load")
+class SeededScenarioLoadTest {
+
+    private static final long SEED = 42;
+    private static final LocalDate ANCHOR = LocalDate.of(2026, 1, 1);
+    private static final int REQUESTS = 5_000;
+    private static final int CONCURRENCY = 200;
+
+    @Test
+    void mixedReadScenarios() throws Exception {
+        long rows = Long.getLong("load.seed.users", 200_000);
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootJpaPracticeApplication.class)
+                // Arguments rather than default properties, which application.properties would override
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:seeded-load;DB_CLOSE_DELAY=-1",
+                        "--app.seed.users=" + rows,
+                        "--app.seed.random-seed=" + SEED,
+                        "--app.seed.anchor-date=" + ANCHOR,
+                        "--spring.threads.virtual.enabled=true",
+                        // One client at full concurrency would mostly be shed by admission control
+                        "--app.admission.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN")) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            assertEquals(rows, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class));
+            long firstId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM users", Long.class);
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port + "/api/users";
+            SyntheticUsers users = new SyntheticUsers(SEED, ANCHOR);
+            // Spread request n over the table without clustering on the first rows
+            IntFunction<Long> row = n -> Math.floorMod(n * 2_654_435_761L, rows);
+            IntFunction<User> sample = n -> users.user(row.apply(n));
+
+            LoadGenerator generator = new LoadGenerator();
+            generator.run("warm-up", 2_000, 100, n -> URI.create(base + "/" + (firstId + row.apply(n))));
+
+            List<LoadGenerator.Result> results = new ArrayList<>();
+            results.add(generator.run("by id", REQUESTS, CONCURRENCY,
+                    n -> URI.create(base + "/" + (firstId + row.apply(n)))));
+            results.add(generator.run("by email", REQUESTS, CONCURRENCY,
+                    n -> URI.create(base + "/email/" + encode(sample.apply(n).getEmail()))));
+            results.add(generator.run("city page", REQUESTS, CONCURRENCY,
+                    n -> URI.create(base + "/search/city/" + encode(cityOf(sample.apply(n))) + "?size=20")));
+            results.add(generator.run("city scroll", REQUESTS, CONCURRENCY,
+                    n -> URI.create(base + "/search/city/" + encode(cityOf(sample.apply(n))) + "/scroll?size=20")));
+            results.add(generator.run("name prefix", REQUESTS, CONCURRENCY,
+                    n -> URI.create(base + "/search/name/" + encode(sample.apply(n).getName().split(" ")[0])
+                            + "?match=prefix&size=20")));
+            results.add(generator.run("age range", REQUESTS, CONCURRENCY,
+                    n -> URI.create(base + "/search/age?minAge=" + (18 + n % 40) + "&maxAge=" + (23 + n % 40) + "&size=20")));
+
+            results.forEach(System.out::println);
+            for (LoadGenerator.Result result : results) {
+                assertTrue(result.errors() < REQUESTS / 100, () -> "Too many failed requests: " + result);
+            }
+        }
+    }
+
+    private static String cityOf(User user) {
+        return user.getCity() != null ? user.getCity() : "New York";
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.springbootjpapractice.load;
+
+import org.example.springbootjpapractice.SpringBootJpaPracticeApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compares platform-thread and virtual-thread request handling under high concurrency.
+ * Excluded from the default build; run with {@code ./mvnw -Pload-test test}.
+ */
+@Tag("load")
+class VirtualThreadLoadTest {
+
+    private static final String[] CITIES = {"New York", "Los Angeles", "Chicago", "Seattle"};
+    private static final int REQUESTS = 20_000;
+    private static final int CONCURRENCY = 2_000;
+
+    @ParameterizedTest(name = "virtual threads = {0}")
+    @ValueSource(booleans = {false, true})
+    void pagedSearchUnderLoad(boolean virtualThreads) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootJpaPracticeApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads + ";DB_CLOSE_DELAY=-1",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        // Measures the thread model, not how much of one client's flood admission control sheds
+                        "app.admission.enabled=false",
+                        "spring.jpa.show-sql=false",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .run()) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String base = "http://localhost:" + port + "/api/users";
+            LoadGenerator generator = new LoadGenerator();
+
+            generator.run("warm-up", 2_000, 100, n -> URI.create(base + "/" + (1 + n % 8)));
+            LoadGenerator.Result result = generator.run(
+                    virtualThreads ? "virtual threads" : "platform threads", REQUESTS, CONCURRENCY,
+                    n -> URI.create(base + "/search/city/" + CITIES[n % CITIES.length].replace(" ", "%20") + "?size=20"));
+
+            System.out.println(result);
+            assertTrue(result.errors() < REQUESTS / 100, () -> "Too many failed requests: " + result);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package org.example.springbootjpapractice.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChangeFeedTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserChangeFeed userChangeFeed;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Test
+    void changesArriveInCommitOrderWithConsecutivePositions() throws Exception {
+        long start = userChangeFeed.getLastPosition();
+        List<Long> ids = List.of(create("Feed One"), create("Feed Two"), create("Feed Three"));
+
+        List<JsonNode> changes = awaitChanges(start, ids);
+
+        for (int i = 0; i < changes.size(); i++) {
+            assertThat(changes.get(i).get("position").asLong()).isEqualTo(start + 1 + i);
+        }
+        assertThat(created(changes)).containsSubsequence(ids);
+    }
+
+    @Test
+    void consumersResumeAfterTheirLastPosition() throws Exception {
+        long start = userChangeFeed.getLastPosition();
+        List<Long> ids = List.of(create("Resume One"), create("Resume Two"), create("Resume Three"));
+        List<JsonNode> changes = awaitChanges(start, ids);
+        long resumeAfter = changes.stream()
+                .filter(change -> change.get("userId").asLong() == ids.get(1))
+                .findFirst().orElseThrow()
+                .get("position").asLong();
+
+        List<JsonNode> rest = read(resumeAfter);
+
+        assertThat(rest).allSatisfy(change -> assertThat(change.get("position").asLong()).isGreaterThan(resumeAfter));
+        assertThat(created(rest)).contains(ids.get(2)).doesNotContain(ids.get(0), ids.get(1));
+    }
+
+    @Test
+    void prunedCursorsAreExpired() throws Exception {
+        long start = userChangeFeed.getLastPosition();
+        List<Long> ids = List.of(create("Pruned One"), create("Pruned Two"));
+        awaitChanges(start, ids);
+        assertThat(userChangeFeed.isExpired(start)).isFalse();
+
+        Clock clock = (Clock) ReflectionTestUtils.getField(outboxRelay, "clock");
+        ReflectionTestUtils.setField(outboxRelay, "clock", Clock.offset(clock, Duration.ofDays(8)));
+        try {
+            outboxRelay.prune();
+        } finally {
+            ReflectionTestUtils.setField(outboxRelay, "clock", clock);
+        }
+
+        assertThat(userChangeFeed.isExpired(start)).isTrue();
+        assertThat(userChangeFeed.isExpired(userChangeFeed.getLastPosition())).isFalse();
+    }
+
+    /**
+     * Reads the feed after {@code after} until the relay has published the creation of every user in {@code ids}.
+     */
+    private List<JsonNode> awaitChanges(long after, List<Long> ids) throws Exception {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            List<JsonNode> changes = read(after);
+            if (created(changes).containsAll(ids) || System.nanoTime() > deadline) {
+                return changes;
+            }
+            userChangeFeed.awaitAfter(userChangeFeed.getLastPosition())
+                    .completeOnTimeout(0L, 100, TimeUnit.MILLISECONDS).join();
+        }
+    }
+
+    private List<JsonNode> read(long after) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        userChangeFeed.write(after, 5000, out);
+        List<JsonNode> changes = new ArrayList<>();
+        for (String line : out.toString().split("\n")) {
+            if (!line.isBlank()) {
+                changes.add(objectMapper.readTree(line));
+            }
+        }
+        return changes;
+    }
+
+    private static List<Long> created(List<JsonNode> changes) {
+        return changes.stream()
+                .filter(change -> change.get("type").asText().equals("CREATED"))
+                .map(change -> change.get("userId").asLong())
+                .toList();
+    }
+
+    private long create(String name) throws Exception {
+        String body = objectMapper.writeValueAsString(Map.of(
+                "name", name, "email", UUID.randomUUID() + "@feed.test", "age", 30, "city", "Oslo"));
+        String response = mockMvc.perform(post("/api/users").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.springbootjpapractice.outbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserChangeFeedTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final UserChangeFeed feed = new UserChangeFeed();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(feed, "jdbcTemplate", jdbcTemplate);
+    }
+
+    @Test
+    void cursorsBeforeTheOldestRetainedChangeAreExpired() {
+        feed.published(10);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(5L);
+
+        assertThat(feed.isExpired(4)).isFalse();
+        assertThat(feed.isExpired(10)).isFalse();
+        assertThat(feed.isExpired(3)).isTrue();
+        // Ahead of the feed, e.g. a cursor from before a reset
+        assertThat(feed.isExpired(11)).isTrue();
+    }
+
+    @Test
+    void anEmptyFeedOnlyAcceptsTheLatestPosition() {
+        feed.published(10);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenReturn(null);
+
+        assertThat(feed.isExpired(10)).isFalse();
+        assertThat(feed.isExpired(9)).isTrue();
+    }
+
+    @Test
+    void waitersCompleteOnceAChangeAfterTheirCursorIsPublished() {
+        feed.published(3);
+
+        assertThat(feed.awaitAfter(2)).isCompletedWithValue(3L);
+
+        CompletableFuture<Long> waiting = feed.awaitAfter(3);
+        CompletableFuture<Long> further = feed.awaitAfter(4);
+        assertThat(waiting).isNotDone();
+
+        feed.published(4);
+        assertThat(waiting).isCompletedWithValue(4L);
+        assertThat(further).isNotDone();
+
+        feed.published(6);
+        assertThat(further).isCompletedWithValue(6L);
+        assertThat(waiters()).isEmpty();
+    }
+
+    @Test
+    void cancelledWaitersAreDropped() {
+        feed.published(1);
+        CompletableFuture<Long> waiting = feed.awaitAfter(1);
+
+        waiting.cancel(false);
+
+        assertThat(waiters()).isEmpty();
+        feed.published(2);
+        assertThat(waiting).isCancelled();
+    }
+
+    private Queue<?> waiters() {
+        return (Queue<?>) ReflectionTestUtils.getField(feed, "waiters");
+    }
+}
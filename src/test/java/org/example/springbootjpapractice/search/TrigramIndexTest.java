@@ -0,0 +1,60 @@
+package org.example.springbootjpapractice.search;
+
+import org.example.springbootjpapractice.search.TrigramIndex.Match;
+import org.example.springbootjpapractice.search.TrigramIndex.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    private final TrigramIndex index = new TrigramIndex();
+
+    @BeforeEach
+    void setUp() {
+        index.put(1, "John Smith");
+        index.put(2, "Jane Johnson");
+        index.put(3, "Bob Smithers");
+        index.put(4, "Alice Jo");
+    }
+
+    @Test
+    void containsMatchesAnywhereIgnoringCase() {
+        assertThat(index.search("SMITH", Match.CONTAINS, Order.TEXT, false)).containsExactly(3L, 1L);
+        assertThat(index.search("ohn", Match.CONTAINS, Order.TEXT, false)).containsExactly(2L, 1L);
+        assertThat(index.count("zzz", Match.CONTAINS)).isZero();
+    }
+
+    @Test
+    void prefixMatchesTheStartOfAnyWord() {
+        assertThat(index.search("jo", Match.PREFIX, Order.TEXT, false)).containsExactly(4L, 2L, 1L);
+        assertThat(index.search("s", Match.PREFIX, Order.TEXT, false)).containsExactly(3L, 1L);
+        assertThat(index.search("mith", Match.PREFIX, Order.TEXT, false)).isEmpty();
+    }
+
+    @Test
+    void queriesShorterThanAGramFallBackToAScan() {
+        assertThat(index.search("th", Match.CONTAINS, Order.TEXT, false)).containsExactly(3L, 1L);
+    }
+
+    @Test
+    void relevanceRanksExactThenPrefixThenWordThenInfix() {
+        index.put(5, "Smith");
+        index.put(6, "Blacksmith");
+
+        assertThat(index.search("smith", Match.CONTAINS, Order.RELEVANCE, false)).containsExactly(5L, 1L, 3L, 6L);
+        assertThat(index.search("smith", Match.CONTAINS, Order.TEXT, false)).containsExactly(6L, 3L, 1L, 5L);
+    }
+
+    @Test
+    void renamesAndRemovalsStopMatchingAndCountAsStale() {
+        index.put(1, "John Doe");
+        index.remove(3);
+
+        assertThat(index.search("smith", Match.CONTAINS, Order.TEXT, false)).isEmpty();
+        assertThat(index.search("doe", Match.CONTAINS, Order.TEXT, false)).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.staleRatio()).isGreaterThan(0);
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.springbootjpapractice.search;
+
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.example.springbootjpapractice.search.TrigramIndex.Match;
+import org.example.springbootjpapractice.search.TrigramIndex.Order;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserNameIndexTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserNameIndex nameIndex = new UserNameIndex();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(nameIndex, "userRepository", userRepository);
+        ReflectionTestUtils.setField(nameIndex, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(nameIndex, "taskExecutor", new TaskExecutorAdapter(Runnable::run));
+        ReflectionTestUtils.setField(nameIndex, "maxStaleRatio", 0.5);
+    }
+
+    @Test
+    void bulkChangeDuringARebuildTriggersAnotherPass() {
+        AtomicInteger passes = new AtomicInteger();
+        when(userRepository.streamAllIdsAndNames()).thenAnswer(invocation -> {
+            if (passes.incrementAndGet() == 1) {
+                // A bulk rename commits after this pass has read the table
+                nameIndex.onUsersBulkChanged(UsersBulkChangedEvent.unknown());
+                return rows(new Object[]{1L, "Old Name"});
+            }
+            return rows(new Object[]{1L, "New Name"});
+        });
+
+        nameIndex.rebuild();
+
+        assertThat(passes).hasValue(2);
+        assertThat(nameIndex.search("new", Match.CONTAINS, Order.TEXT, false)).containsExactly(1L);
+        assertThat(nameIndex.search("old", Match.CONTAINS, Order.TEXT, false)).isEmpty();
+    }
+
+    @Test
+    void rebuildWithoutConcurrentChangesRunsOnce() {
+        AtomicInteger passes = new AtomicInteger();
+        when(userRepository.streamAllIdsAndNames()).thenAnswer(invocation -> {
+            passes.incrementAndGet();
+            return rows(new Object[]{1L, "Only Name"});
+        });
+
+        nameIndex.rebuild();
+
+        assertThat(passes).hasValue(1);
+        assertThat(nameIndex.size()).isEqualTo(1);
+    }
+
+    private static Stream<Object[]> rows(Object[]... rows) {
+        return List.of(rows).stream();
+    }
+}
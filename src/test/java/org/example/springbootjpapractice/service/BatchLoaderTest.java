@@ -0,0 +1,144 @@
+package org.example.springbootjpapractice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchLoaderTest {
+
+    private final List<List<Integer>> batches = Collections.synchronizedList(new ArrayList<>());
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLoadsShareOneBatch() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(recording(this::names), 100, Duration.ofSeconds(1));
+
+        List<CompletableFuture<String>> loads = new ArrayList<>();
+        for (int key = 1; key <= 4; key++) {
+            int k = key;
+            loads.add(CompletableFuture.supplyAsync(() -> loader.load(k), executor));
+        }
+
+        assertThat(loads.stream().map(CompletableFuture::join)).containsExactly("user-1", "user-2", "user-3", "user-4");
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactlyInAnyOrder(1, 2, 3, 4);
+        assertThat(loader.getBatchCount()).isEqualTo(1);
+        assertThat(loader.getKeyCount()).isEqualTo(4);
+    }
+
+    @Test
+    void fullBatchesLoadWithoutWaitingForTheWindow() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(recording(this::names), 3, Duration.ZERO);
+
+        Map<Integer, String> values = loader.loadAll(List.of(5, 4, 3, 2, 1));
+
+        assertThat(values.keySet()).containsExactly(5, 4, 3, 2, 1);
+        assertThat(batches).containsExactly(List.of(5, 4, 3), List.of(2, 1));
+    }
+
+    @Test
+    void missingKeysAreLeftOut() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(recording(keys -> names(
+                keys.stream().filter(key -> key % 2 == 0).toList())), 100, Duration.ZERO);
+
+        assertThat(loader.loadAll(List.of(1, 2, 3, 4))).containsExactly(Map.entry(2, "user-2"), Map.entry(4, "user-4"));
+        assertThat(loader.load(1)).isNull();
+    }
+
+    @Test
+    void repeatedKeysInOneCallAreLoadedOnce() {
+        BatchLoader<Integer, String> loader = new BatchLoader<>(recording(this::names), 100, Duration.ZERO);
+
+        assertThat(loader.loadAll(List.of(7, 7, 8))).containsOnlyKeys(7, 8);
+        assertThat(batches).containsExactly(List.of(7, 8));
+    }
+
+    @Test
+    void keysAlreadyLoadingAreShared() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BatchLoader<Integer, String> loader = new BatchLoader<>(recording(keys -> {
+            loading.countDown();
+            await(release);
+            return names(keys);
+        }), 100, Duration.ZERO);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> loader.load(1), executor);
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> loader.load(1), executor);
+        awaitShared(loader, 1);
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("user-1");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("user-1");
+        assertThat(batches).containsExactly(List.of(1));
+    }
+
+    @Test
+    void failuresReachEveryCallerOfTheBatchAndAreNotCached() {
+        boolean[] fail = {true};
+        BatchLoader<Integer, String> loader = new BatchLoader<>(recording(keys -> {
+            if (fail[0]) {
+                throw new IllegalStateException("database down");
+            }
+            return names(keys);
+        }), 100, Duration.ofMillis(500));
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> loader.load(1), executor);
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(() -> loader.load(2), executor);
+
+        assertThatThrownBy(first::join).hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(second::join).hasRootCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> loader.load(3)).isInstanceOf(IllegalStateException.class).hasMessage("database down");
+
+        fail[0] = false;
+        assertThat(loader.load(1)).isEqualTo("user-1");
+    }
+
+    private Function<List<Integer>, Map<Integer, String>> recording(Function<List<Integer>, Map<Integer, String>> load) {
+        return keys -> {
+            batches.add(List.copyOf(keys));
+            return load.apply(keys);
+        };
+    }
+
+    private Map<Integer, String> names(List<Integer> keys) {
+        return keys.stream().collect(Collectors.toMap(Function.identity(), key -> "user-" + key));
+    }
+
+    private static void awaitShared(BatchLoader<?, ?> loader, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (loader.getSharedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(loader.getSharedCount()).isEqualTo(count);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
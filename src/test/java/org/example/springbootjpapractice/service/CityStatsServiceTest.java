@@ -0,0 +1,125 @@
+package org.example.springbootjpapractice.service;
+
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.example.springbootjpapractice.event.UsersBulkChangedEvent;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CityStatsServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final CityStatsService service = new CityStatsService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "jdbcTemplate", mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void appliesCommittedChangesIncrementally() {
+        when(userRepository.countByCityAndAge()).thenReturn(rows(new Object[]{"Oslo", 30, 2L}));
+        service.reconcile();
+
+        service.onUserChanged(created(1L, "Oslo", 40));
+        service.onUserChanged(new UserChangedEvent(UserChangedEvent.Type.UPDATED,
+                user(1L, "Oslo", 40), user(1L, "Bergen", 40)));
+
+        assertThat(service.countByCity("Oslo")).isEqualTo(2);
+        assertThat(service.countByCity("Bergen")).isEqualTo(1);
+        assertThat(service.getStats("Bergen").averageAge()).isEqualTo(40.0);
+    }
+
+    @Test
+    void changesCommittedDuringReconcileApplyToTheRebuiltCounts() throws Exception {
+        Thread[] committer = new Thread[1];
+        when(userRepository.countByCityAndAge()).thenAnswer(invocation -> {
+            // Committed after the GROUP BY read the table, so not part of its counts
+            committer[0] = Thread.ofPlatform().start(() -> service.onUserChanged(created(2L, "Oslo", 25)));
+            awaitBlocked(committer[0]);
+            return rows(new Object[]{"Oslo", 30, 1L});
+        });
+
+        service.reconcile();
+        committer[0].join(5000);
+
+        assertThat(service.countByCity("Oslo")).isEqualTo(2);
+        assertThat(service.getStats("Oslo").minAge()).isEqualTo(25);
+    }
+
+    @Test
+    void changesTheGroupByAlreadyCountedAreNotReplayed() {
+        when(userRepository.countByCityAndAge()).thenReturn(rows(new Object[]{"Oslo", 30, 1L}));
+        service.reconcile();
+
+        // Committed before the next rebuild, whose counts include it
+        service.onUserChanged(created(2L, "Oslo", 25));
+        when(userRepository.countByCityAndAge()).thenReturn(rows(new Object[]{"Oslo", 30, 1L}, new Object[]{"Oslo", 25, 1L}));
+        service.reconcile();
+
+        assertThat(service.countByCity("Oslo")).isEqualTo(2);
+    }
+
+    @Test
+    void bulkChangesRebuildOnTheNextDirtyCheck() {
+        when(userRepository.countByCityAndAge()).thenReturn(rows(new Object[]{"Oslo", 30, 1L}));
+        service.reconcile();
+        when(userRepository.countByCityAndAge()).thenReturn(rows(new Object[]{"Oslo", 30, 5L}));
+
+        service.onUsersBulkChanged(UsersBulkChangedEvent.unknown());
+        assertThat(service.countByCity("Oslo")).isEqualTo(1);
+        verify(userRepository, times(1)).countByCityAndAge();
+
+        service.reconcileIfDirty();
+        service.reconcileIfDirty();
+
+        assertThat(service.countByCity("Oslo")).isEqualTo(5);
+        verify(userRepository, times(2)).countByCityAndAge();
+    }
+
+    @Test
+    void reconcileReportsDriftedCities() {
+        when(userRepository.countByCityAndAge()).thenReturn(rows(new Object[]{"Oslo", 30, 1L}));
+        service.reconcile();
+
+        when(userRepository.countByCityAndAge()).thenReturn(rows(new Object[]{"Oslo", 30, 3L}));
+        assertThat(service.reconcile()).isEqualTo(1);
+        assertThat(service.reconcile()).isZero();
+    }
+
+    private static void awaitBlocked(Thread thread) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (thread.getState() != Thread.State.BLOCKED && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertThat(thread.getState()).isEqualTo(Thread.State.BLOCKED);
+    }
+
+    private static UserChangedEvent created(Long id, String city, Integer age) {
+        return new UserChangedEvent(UserChangedEvent.Type.CREATED, null, user(id, city, age));
+    }
+
+    private static UserSnapshot user(Long id, String city, Integer age) {
+        return new UserSnapshot(id, "User " + id, "user" + id + "@example.com", age, city, null, null, 0L);
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.springbootjpapractice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.springbootjpapractice.event.UserChangedEvent;
+import org.example.springbootjpapractice.event.UserSnapshot;
+import org.example.springbootjpapractice.repository.UserRepository;
+import org.example.springbootjpapractice.repository.UserSpecifications;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserPurgeServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final List<Object> events = new ArrayList<>();
+    private final UserPurgeService service = new UserPurgeService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "userRepository", userRepository);
+        ReflectionTestUtils.setField(service, "eventPublisher", (ApplicationEventPublisher) events::add);
+        ReflectionTestUtils.setField(service, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+    }
+
+    @Test
+    void runsUntilNoRowMatchesAndPublishesOneDeleteEventPerRow() throws Exception {
+        when(userRepository.lockSnapshots(any(), anyInt()))
+                .thenReturn(List.of(row(1L), row(2L)), List.of(row(3L)), List.of());
+        when(userRepository.deleteByIds(any())).thenReturn(2, 1);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(service.purge(UserSpecifications.all(), out)).isEqualTo(3);
+
+        assertThat(events).extracting(event -> ((UserChangedEvent) event).id()).containsExactly(1L, 2L, 3L);
+        assertThat(out.toString()).endsWith("\"deleted\":3,\"done\":true}\n");
+    }
+
+    @Test
+    void aBatchThatDeletedFewerRowsThanItLockedPublishesNothing() {
+        when(userRepository.lockSnapshots(any(), anyInt())).thenReturn(List.of(row(1L), row(2L)));
+        when(userRepository.deleteByIds(any())).thenReturn(1);
+
+        assertThatThrownBy(() -> service.purge(UserSpecifications.all(), new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(events).isEmpty();
+    }
+
+    private static UserSnapshot row(Long id) {
+        return new UserSnapshot(id, "User " + id, "user" + id + "@example.com", 30, "Oslo", null, null, 0L);
+    }
+}
@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS users (
+    id BIGINT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    email VARCHAR(150) NOT NULL UNIQUE,
+    age INTEGER,
+    city VARCHAR(100),
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    version BIGINT,
+    name_lower VARCHAR(100),
+    email_reversed VARCHAR(150)
+);